@@ -0,0 +1,84 @@
+package com.berry.benchmark;
+
+import com.berry.util.Auth;
+import com.berry.util.Base64Util;
+import com.berry.util.StringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title AuthBenchmark
+ * Description 请求签名：线程内复用 Mac 与缓冲区 vs 每次创建 Mac、URI 及中间字节数组（原实现），以及上传口令生成
+ * <p>运行 ./gradlew jmh，gc.alloc.rate.norm 为每次签名分配的字节数</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/18 10:40
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class AuthBenchmark {
+
+    private static final String ACCESS_KEY_ID = "du88vKhV3hVnkiO451uY.I";
+    private static final String ACCESS_KEY_SECRET = "tj1A2vc4t7kna2ACXQsnRcL5KaSp0wr";
+
+    @Param({"https://www.hicooper.cn:8077/ajax/bucket/file/master/th.jpg",
+            "https://www.hicooper.cn:8077/ajax/bucket/obj/upload_part.json?uploadId=5d7f1c2a9e&partNumber=12"})
+    public String url;
+
+    private Auth auth;
+    private SecretKeySpec secretKeySpec;
+
+    @Setup
+    public void setup() {
+        auth = Auth.create(ACCESS_KEY_ID, ACCESS_KEY_SECRET);
+        secretKeySpec = new SecretKeySpec(StringUtils.utf8Bytes(ACCESS_KEY_SECRET), "HmacSHA1");
+        if (!auth.getSign(url).equals(legacySign())) {
+            throw new IllegalStateException("signature mismatch");
+        }
+    }
+
+    @Benchmark
+    public String sign() {
+        return auth.getSign(url);
+    }
+
+    @Benchmark
+    public String uploadToken() {
+        return auth.uploadToken(3600, "127.0.0.1");
+    }
+
+    /**
+     * 原签名实现
+     */
+    @Benchmark
+    public String legacySign() {
+        URI uri = URI.create(url);
+        String path = uri.getRawPath();
+        String query = uri.getRawQuery();
+        Mac mac;
+        try {
+            mac = Mac.getInstance("HmacSHA1");
+            mac.init(secretKeySpec);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException(e);
+        }
+        mac.update(StringUtils.utf8Bytes(path));
+        if (query != null && query.length() != 0) {
+            mac.update((byte) ('?'));
+            mac.update(StringUtils.utf8Bytes(query));
+        }
+        mac.update((byte) '\n');
+        return "OSS-" + ACCESS_KEY_ID + ":" + Base64Util.encode(mac.doFinal());
+    }
+}
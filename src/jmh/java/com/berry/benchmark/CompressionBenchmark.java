@@ -0,0 +1,70 @@
+package com.berry.benchmark;
+
+import com.berry.common.OssException;
+import com.berry.emulator.OssEmulator;
+import com.berry.storage.Config;
+import com.berry.storage.ObjectManage;
+import com.berry.storage.dto.ObjectInfo;
+import com.berry.util.Auth;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title CompressionBenchmark
+ * Description 带宽受限时 base64 上传（JSON 请求体）压缩与不压缩的耗时
+ * <p>模拟服务限速 2MB/s，上传内容为 256KB 日志文本的 base64，threshold 为 0 时不压缩；运行 ./gradlew jmh</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/10/12 11:00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final String ACCESS_KEY_ID = "du88vKhV3hVnkiO451uY.I";
+    private static final String ACCESS_KEY_SECRET = "tj1A2vc4t7kna2ACXQsnRcL5KaSp0wr";
+    private static final long BANDWIDTH = 2 * 1024 * 1024;
+
+    @Param({"0", "1024"})
+    public long threshold;
+
+    private OssEmulator emulator;
+    private ObjectManage objectManage;
+    private String base64;
+
+    @Setup
+    public void setup() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 256 * 1024; i++) {
+            text.append("2019-10-12 11:00:00.000 INFO [main] c.b.storage.ObjectManage - request ").append(i).append(" done\n");
+        }
+        base64 = "data:text/plain;base64," + Base64.getEncoder().encodeToString(text.toString().getBytes(StandardCharsets.UTF_8));
+        emulator = OssEmulator.builder()
+                .credential(ACCESS_KEY_ID, ACCESS_KEY_SECRET)
+                .bucket("bench")
+                .bandwidth(BANDWIDTH)
+                .start();
+        Config config = new Config(emulator.getHost());
+        config.setRequestCompressionThreshold(threshold);
+        objectManage = new ObjectManage(Auth.create(ACCESS_KEY_ID, ACCESS_KEY_SECRET), config);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        emulator.close();
+    }
+
+    @Benchmark
+    public ObjectInfo uploadBase64() throws OssException {
+        return objectManage.upload("bench", "PRIVATE", null, "log.txt", base64);
+    }
+}
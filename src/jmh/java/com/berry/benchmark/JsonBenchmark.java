@@ -0,0 +1,86 @@
+package com.berry.benchmark;
+
+import com.berry.storage.dto.ObjectInfo;
+import com.berry.storage.dto.Result;
+import com.berry.util.Json;
+import com.berry.util.StringMap;
+import com.berry.util.StringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title JsonBenchmark
+ * Description url 参数拼接与 JSON 编解码：请求参数、bucket/对象响应解码
+ * <p>运行 ./gradlew jmh，gc.alloc.rate.norm 为每次操作分配的字节数</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/19 10:05
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    private static final Type OBJECT_INFO_RESULT = Json.type(Result.class, ObjectInfo.class);
+
+    private static final String OBJECT_INFO_JSON = "{\"code\":\"200\",\"msg\":\"SUCCESS\",\"data\":{"
+            + "\"id\":\"5d7f1c2a9e0b4c1f8a3d2e6b\",\"fileName\":\"th.jpg\",\"filePath\":\"/master/images\","
+            + "\"url\":\"https://www.hicooper.cn:8077/ajax/bucket/file/master/images/th.jpg\","
+            + "\"acl\":\"PRIVATE\",\"size\":1048576,\"formattedSize\":\"1.00MB\",\"uploadType\":true}}";
+
+    private StringMap params;
+
+    @Setup
+    public void setup() {
+        params = new StringMap()
+                .put("bucket", "master")
+                .put("acl", "PRIVATE")
+                .put("filePath", "/images/2019/09")
+                .put("fileName", "th.jpg")
+                .put("timeout", 3600);
+    }
+
+    @Benchmark
+    public String parseUrlParams() {
+        return StringUtils.parseUrlParams(params);
+    }
+
+    @Benchmark
+    public String encodeUrlParams() {
+        return StringUtils.encodeUrlParams(params);
+    }
+
+    @Benchmark
+    public String encodeParams() {
+        return Json.encode(params);
+    }
+
+    @Benchmark
+    public StringMap decodeMap() {
+        return Json.decode(OBJECT_INFO_JSON);
+    }
+
+    /**
+     * 原解码方式：Result 解码后 data 重新序列化再解码
+     */
+    @Benchmark
+    public ObjectInfo decodeRoundTrip() {
+        Result<?> result = Json.decode(OBJECT_INFO_JSON, Result.class);
+        return Json.decode(Json.encode(result.getData()), ObjectInfo.class);
+    }
+
+    /**
+     * 按 Result&lt;ObjectInfo&gt; 一次解码
+     */
+    @Benchmark
+    public ObjectInfo decodeTyped() {
+        Result<ObjectInfo> result = Json.codec().decode(OBJECT_INFO_JSON, OBJECT_INFO_RESULT);
+        return result.getData();
+    }
+}
@@ -0,0 +1,124 @@
+package com.berry.benchmark;
+
+import com.berry.common.OssException;
+import com.berry.http.HttpProtocol;
+import com.berry.storage.Config;
+import com.berry.storage.ObjectManage;
+import com.berry.util.Auth;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.*;
+
+import javax.net.ServerSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title ProtocolBenchmark
+ * Description HTTP/1.1 连接池 vs h2c 单连接多路复用，32 个线程同时读取小对象（1KB）与大对象（4MB）
+ * <p>JDK HttpServer 不支持 HTTP/2，服务端使用 MockWebServer 返回固定内容，每个响应头延迟 5ms 模拟服务端处理时间，
+ * 与模拟服务相同关闭 Nagle，避免 HTTP/1.1 小响应叠加延迟确认；
+ * HTTP/1.1 每个线程占用一个连接，h2c 所有线程共用一个连接。TLS 上的 HTTP/2 需要证书与 ALPN，未包含在内。
+ * 运行 ./gradlew jmh</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/10/11 11:00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class ProtocolBenchmark {
+
+    private static final String ACCESS_KEY_ID = "du88vKhV3hVnkiO451uY.I";
+    private static final String ACCESS_KEY_SECRET = "tj1A2vc4t7kna2ACXQsnRcL5KaSp0wr";
+    private static final long HEADERS_DELAY_MILLIS = 5;
+
+    @Param({"HTTP_1_1", "H2C"})
+    public HttpProtocol protocol;
+
+    @Param({"1024", "4194304"})
+    public int objectSize;
+
+    private MockWebServer server;
+    private ObjectManage objectManage;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] data = new byte[objectSize];
+        new Random(42).nextBytes(data);
+        server = new MockWebServer();
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        server.setProtocols(protocol == HttpProtocol.H2C
+                ? Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE)
+                : Collections.singletonList(Protocol.HTTP_1_1));
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                        .setHeader("Content-Type", "application/octet-stream")
+                        .setBody(new Buffer().write(data))
+                        .setHeadersDelay(HEADERS_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+        Config config = new Config(server.getHostName() + ":" + server.getPort());
+        config.setProtocol(protocol);
+        objectManage = new ObjectManage(Auth.create(ACCESS_KEY_ID, ACCESS_KEY_SECRET), config);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Benchmark
+    public byte[] getObject() throws OssException {
+        return objectManage.getObject("bench", "bench.bin");
+    }
+
+    /**
+     * 接受的连接关闭 Nagle
+     */
+    private static final class NoDelayServerSocketFactory extends ServerSocketFactory {
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.berry.benchmark;
+
+import com.berry.common.Constants;
+import com.berry.util.StringMap;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title UploadPayloadBenchmark
+ * Description 字节数据上传请求体对比：JSON 编码字节数组（upload_byte） vs 二进制请求体（upload_octet）
+ * <p>运行 ./gradlew jmh，gc.alloc.rate.norm 为每次操作分配的字节数，请求体大小在启动时输出</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/11 15:05
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UploadPayloadBenchmark {
+
+    private static final MediaType JSON = MediaType.get(Constants.JSON_MIME);
+    private static final MediaType OCTET = MediaType.get(Constants.DEFAULT_MIME);
+
+    @Param({"1024", "1048576"})
+    public int size;
+
+    private byte[] data;
+    private StringMap params;
+    private Gson gson;
+
+    @Setup
+    public void setup() throws IOException {
+        data = new byte[size];
+        new Random(42).nextBytes(data);
+        params = new StringMap()
+                .put("bucket", "bench")
+                .put("acl", "PRIVATE")
+                .put("fileName", "bench.bin")
+                .put("data", data);
+        gson = new GsonBuilder().enableComplexMapKeySerialization().create();
+        System.out.printf("%n[size=%d] json body: %d bytes, octet body: %d bytes%n", size, jsonBody(), octetBody());
+    }
+
+    /**
+     * 原 upload_byte 请求体：Gson 将 byte[] 编码为十进制数字数组
+     */
+    @Benchmark
+    public long jsonBody() throws IOException {
+        RequestBody body = RequestBody.create(JSON, gson.toJson(params.map()));
+        return writeToWire(body);
+    }
+
+    /**
+     * upload_octet 请求体：直接引用字节数组
+     */
+    @Benchmark
+    public long octetBody() throws IOException {
+        RequestBody body = RequestBody.create(OCTET, data, 0, data.length);
+        return writeToWire(body);
+    }
+
+    private static long writeToWire(RequestBody body) throws IOException {
+        BufferedSink sink = Okio.buffer(Okio.blackhole());
+        body.writeTo(sink);
+        sink.flush();
+        return body.contentLength();
+    }
+}
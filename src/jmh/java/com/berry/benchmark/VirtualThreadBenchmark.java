@@ -0,0 +1,91 @@
+package com.berry.benchmark;
+
+import com.berry.emulator.OssEmulator;
+import com.berry.storage.Config;
+import com.berry.storage.ObjectManage;
+import com.berry.util.Auth;
+import com.berry.util.VirtualThreads;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title VirtualThreadBenchmark
+ * Description 大量并发阻塞调用：固定大小平台线程池 vs 每个调用一个虚拟线程
+ * <p>每次操作同时发起 concurrency 个 getObject，本地模拟服务每个请求延迟 50ms，
+ * 平台线程池大小为 poolSize，受限于线程数；virtual 需要 JDK 21 及以上，低版本该组合失败。
+ * 运行 ./gradlew jmh</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/10/8 11:00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    private static final String ACCESS_KEY_ID = "du88vKhV3hVnkiO451uY.I";
+    private static final String ACCESS_KEY_SECRET = "tj1A2vc4t7kna2ACXQsnRcL5KaSp0wr";
+    private static final long LATENCY_MILLIS = 50;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"1000"})
+    public int concurrency;
+
+    @Param({"200"})
+    public int poolSize;
+
+    private OssEmulator emulator;
+    private ObjectManage objectManage;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() throws IOException {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && !VirtualThreads.isAvailable()) {
+            throw new IllegalStateException("virtual threads require JDK 21+");
+        }
+        emulator = OssEmulator.builder()
+                .credential(ACCESS_KEY_ID, ACCESS_KEY_SECRET)
+                .bucket("bench")
+                .latency(LATENCY_MILLIS)
+                .start();
+        Config config = new Config(emulator.getHost());
+        config.setVirtualThreads(virtual);
+        objectManage = new ObjectManage(Auth.create(ACCESS_KEY_ID, ACCESS_KEY_SECRET), config);
+        objectManage.upload("bench", "PUBLIC_READ", null, "bench.bin", new byte[1024], 0, 1024);
+        executor = virtual ? VirtualThreads.newExecutor("bench-") : Executors.newFixedThreadPool(poolSize);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        emulator.close();
+    }
+
+    @Benchmark
+    public long getObject() throws InterruptedException, ExecutionException {
+        List<Future<byte[]>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(executor.submit(() -> objectManage.getObject("bench", "bench.bin")));
+        }
+        long bytes = 0;
+        for (Future<byte[]> future : futures) {
+            bytes += future.get().length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,72 @@
+package com.berry.http;
+
+import com.berry.common.Constants;
+import com.berry.storage.dto.ObjectInfo;
+import com.berry.storage.dto.Result;
+import com.berry.util.Json;
+import com.berry.util.StringUtils;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title ResponseBenchmark
+ * Description 响应处理：读取响应体生成 {@link Response}，并解码为 Result&lt;ObjectInfo&gt;
+ * <p>与 Response 同包以访问 {@link Response#create}，运行 ./gradlew jmh</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/19 11:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseBenchmark {
+
+    private static final MediaType JSON = MediaType.get(Constants.JSON_MIME);
+
+    private static final Type OBJECT_INFO_RESULT = Json.type(Result.class, ObjectInfo.class);
+
+    private static final String OBJECT_INFO_JSON = "{\"code\":\"200\",\"msg\":\"SUCCESS\",\"data\":{"
+            + "\"id\":\"5d7f1c2a9e0b4c1f8a3d2e6b\",\"fileName\":\"th.jpg\",\"filePath\":\"/master/images\","
+            + "\"url\":\"https://www.hicooper.cn:8077/ajax/bucket/file/master/images/th.jpg\","
+            + "\"acl\":\"PRIVATE\",\"size\":1048576,\"formattedSize\":\"1.00MB\",\"uploadType\":true}}";
+
+    private Request request;
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        request = new Request.Builder().url("https://www.hicooper.cn:8077/ajax/bucket/upload_file.json").build();
+        body = StringUtils.utf8Bytes(OBJECT_INFO_JSON);
+    }
+
+    @Benchmark
+    public Response create() {
+        return Response.create(rawResponse(), null);
+    }
+
+    @Benchmark
+    public ObjectInfo createAndDecode() {
+        Result<ObjectInfo> result = Response.create(rawResponse(), null).jsonToObject(OBJECT_INFO_RESULT);
+        return result.getData();
+    }
+
+    private okhttp3.Response rawResponse() {
+        return new okhttp3.Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(JSON, body))
+                .build();
+    }
+}
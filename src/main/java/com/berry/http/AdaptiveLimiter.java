@@ -0,0 +1,267 @@
+package com.berry.http;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Title AdaptiveLimiter
+ * Description 按 host 自适应调整并发数（AIMD），替代调度器固定的 DISPATCHER_MAX_REQUESTS_PER_HOST
+ * <p>请求失败、服务端过载（429、502、503、504）或首字节耗时超过最小耗时的 2 倍时，上限乘以 0.9，
+ * 同一时刻之前发出的请求只触发一次下调；其余请求成功且并发数达到上限一半时上调，
+ * 首次下调之前每次加 1 以快速找到服务端容量，之后每次加 1/上限，即每轮请求约加 1。
+ * 由 {@link CallExecutor} 在发出请求前获取许可：同步请求超出上限时阻塞调用线程，
+ * 异步请求超出上限时排队，在其他请求释放许可后再交给调度器，不占用调度器线程。
+ * 重试与对冲的每次尝试分别计入，许可在收到响应头或失败时释放</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/10/9 10:20
+ */
+final class AdaptiveLimiter {
+
+    /**
+     * 初始上限，与固定调度器的单 host 并发数相同
+     */
+    static final int INITIAL_LIMIT = 16;
+    static final int MIN_LIMIT = 1;
+    static final int MAX_LIMIT = 256;
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    /**
+     * 耗时抖动余量，避免局域网内亚毫秒级耗时的正常波动触发下调
+     */
+    private static final long LATENCY_SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    /**
+     * 每积累多少个耗时样本重新确定最小耗时，使服务端变慢后基准随之上移
+     */
+    private static final int RTT_WINDOW = 256;
+    /**
+     * 请求体超过该大小时耗时主要取决于上传速度，不作为耗时样本
+     */
+    private static final long MAX_TIMED_BODY = 64 * 1024;
+    private final ConcurrentMap<String, HostLimit> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * 同步获取许可，超出上限时阻塞当前线程
+     *
+     * @param request 请求
+     * @return 许可，请求结束后释放
+     * @throws InterruptedIOException 等待时被中断
+     */
+    Permit acquire(Request request) throws InterruptedIOException {
+        HostLimit limit = hostLimit(request.url());
+        limit.acquire();
+        return new Permit(limit, isTimed(request));
+    }
+
+    /**
+     * 异步获取许可，未超出上限时在当前线程执行，否则排队，在释放许可的线程上执行
+     *
+     * @param request 请求
+     * @param task    取得许可后发出请求，请求结束后释放许可
+     */
+    void acquire(Request request, Consumer<Permit> task) {
+        HostLimit limit = hostLimit(request.url());
+        boolean timed = isTimed(request);
+        if (limit.tryAcquire(() -> task.accept(new Permit(limit, timed)))) {
+            task.accept(new Permit(limit, timed));
+        }
+    }
+
+    /**
+     * 导出各 host 的当前上限、并发数与累计下调次数
+     *
+     * @param sink   导出目标
+     * @param prefix 指标名前缀
+     */
+    void export(MetricsSink sink, String prefix) {
+        for (Map.Entry<String, HostLimit> entry : hosts.entrySet()) {
+            Map<String, String> tags = Collections.singletonMap("host", entry.getKey());
+            HostLimit limit = entry.getValue();
+            synchronized (limit) {
+                sink.gauge(prefix + "limiter.limit", tags, (int) limit.limit);
+                sink.gauge(prefix + "limiter.in_flight", tags, limit.inFlight);
+                sink.gauge(prefix + "limiter.decreases", tags, limit.decreases);
+            }
+        }
+    }
+
+    // ～ private
+    //=======================================================================================================================
+
+    private HostLimit hostLimit(HttpUrl url) {
+        return hosts.computeIfAbsent(url.host() + ":" + url.port(), k -> new HostLimit());
+    }
+
+    private static boolean isOverloaded(int code) {
+        return code == 429 || code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * JSON 请求体长度未知，按 {@link JsonRequestBody#estimatedLength()} 判断；其他长度未知的请求体不计入
+     */
+    private static boolean isTimed(Request request) {
+        RequestBody body = request.body();
+        if (body == null) {
+            return true;
+        }
+        long length;
+        try {
+            length = body instanceof JsonRequestBody ? ((JsonRequestBody) body).estimatedLength() : body.contentLength();
+        } catch (IOException e) {
+            return false;
+        }
+        return length >= 0 && length <= MAX_TIMED_BODY;
+    }
+
+    /**
+     * 一次请求占用的许可，释放一次
+     */
+    static final class Permit {
+        private final HostLimit limit;
+        private final boolean timed;
+        private final long start = System.nanoTime();
+
+        private Permit(HostLimit limit, boolean timed) {
+            this.limit = limit;
+            this.timed = timed;
+        }
+
+        /**
+         * 收到响应头
+         *
+         * @param code 状态码
+         */
+        void onResponse(int code) {
+            limit.release(start, System.nanoTime() - start, isOverloaded(code), timed);
+        }
+
+        /**
+         * 请求失败或未发出
+         *
+         * @param canceled 是否被取消（如对冲落败），取消不反映服务端状态
+         */
+        void onFailure(boolean canceled) {
+            limit.release(start, -1, !canceled, false);
+        }
+    }
+
+    /**
+     * 单个 host 的并发上限，状态由自身锁保护
+     */
+    private static final class HostLimit {
+        private double limit = INITIAL_LIMIT;
+        private int inFlight;
+        private long decreases;
+        /**
+         * 是否还没有下调过
+         */
+        private boolean slowStart = true;
+        /**
+         * 上次下调的时刻，System.nanoTime()
+         */
+        private long lastDecrease = System.nanoTime();
+        /**
+         * 最小耗时基准，0 表示还没有样本
+         */
+        private long minRtt;
+        private long windowMin = Long.MAX_VALUE;
+        private int windowCount;
+
+        /**
+         * 排队中的异步请求，先于同步等待者取得许可
+         */
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+
+        private synchronized void acquire() throws InterruptedIOException {
+            while (inFlight >= (int) limit || !waiting.isEmpty()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException(e.getMessage());
+                }
+            }
+            inFlight++;
+        }
+
+        /**
+         * @param task 超出上限时排队的任务
+         * @return 是否立即取得许可，否则 task 已排队
+         */
+        private synchronized boolean tryAcquire(Runnable task) {
+            if (inFlight < (int) limit && waiting.isEmpty()) {
+                inFlight++;
+                return true;
+            }
+            waiting.add(task);
+            return false;
+        }
+
+        /**
+         * @param start    请求发出时刻
+         * @param rtt      收到响应头的耗时纳秒，失败时为 -1
+         * @param overload 是否失败或服务端过载
+         * @param timed    耗时是否可作为样本
+         */
+        private void release(long start, long rtt, boolean overload, boolean timed) {
+            List<Runnable> ready = new ArrayList<>();
+            synchronized (this) {
+                update(start, rtt, overload, timed, inFlight--);
+                while (inFlight < (int) limit && !waiting.isEmpty()) {
+                    inFlight++;
+                    ready.add(waiting.poll());
+                }
+                notifyAll();
+            }
+            for (Runnable task : ready) {
+                task.run();
+            }
+        }
+
+        private void update(long start, long rtt, boolean overload, boolean timed, int used) {
+            boolean slow = false;
+            if (!overload && timed) {
+                slow = minRtt > 0 && rtt > minRtt * LATENCY_TOLERANCE + LATENCY_SLACK_NANOS;
+                sampleRtt(rtt);
+            }
+            if (overload || slow) {
+                if (start - lastDecrease > 0) {
+                    limit = Math.max(MIN_LIMIT, Math.floor(limit * BACKOFF_RATIO));
+                    lastDecrease = System.nanoTime();
+                    decreases++;
+                    slowStart = false;
+                }
+            } else if (used * 2 >= limit) {
+                limit = Math.min(MAX_LIMIT, limit + (slowStart ? 1 : 1 / limit));
+            }
+        }
+
+        private void sampleRtt(long rtt) {
+            windowMin = Math.min(windowMin, rtt);
+            if (minRtt == 0 || rtt < minRtt) {
+                minRtt = rtt;
+            }
+            if (++windowCount >= RTT_WINDOW) {
+                minRtt = windowMin;
+                windowMin = Long.MAX_VALUE;
+                windowCount = 0;
+            }
+        }
+    }
+}
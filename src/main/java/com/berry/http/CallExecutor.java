@@ -0,0 +1,356 @@
+package com.berry.http;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.internal.annotations.EverythingIsNonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Title CallExecutor
+ * Description 执行 http 调用，按 {@link RetryPolicy} 重试幂等请求，并对 GET 请求进行对冲
+ * <p>重试只发生在响应体交给调用方之前，异步重试的等待由调度线程完成，不占用调度器线程。
+ * 对冲同样只比较到响应头，流式请求取先收到响应头者，响应体开始读取前取消另一个。
+ * 启用自适应并发时每次尝试发出前从 {@link AdaptiveLimiter} 获取许可</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/17 10:18
+ */
+final class CallExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(CallExecutor.class);
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "oss-http-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final OkHttpClient client;
+    private final RetryPolicy policy;
+    private final LatencyTracker latency;
+    @Nullable
+    private final AdaptiveLimiter limiter;
+
+    CallExecutor(OkHttpClient client, RetryPolicy policy, @Nullable AdaptiveLimiter limiter) {
+        this.client = client;
+        this.policy = policy;
+        this.limiter = limiter;
+        this.latency = policy.isHedgingEnabled() ? new LatencyTracker(policy.getHedgePercentile()) : null;
+    }
+
+    OkHttpClient client() {
+        return client;
+    }
+
+    /**
+     * 调用结果监听
+     */
+    interface Listener {
+        void onResponse(okhttp3.Response response);
+
+        void onFailure(IOException e);
+    }
+
+    /**
+     * 可取消的异步调用
+     */
+    interface Cancellable {
+        void cancel();
+    }
+
+    /**
+     * 同步执行
+     *
+     * @param request   请求
+     * @param streaming 流式读取的请求，取消整体调用超时
+     * @return 响应，响应体未读取
+     */
+    okhttp3.Response execute(Request request, boolean streaming) throws IOException {
+        if (shouldHedge(request)) {
+            return executeHedged(request, streaming);
+        }
+        for (int attempt = 0; ; attempt++) {
+            policy.recordRequest();
+            AdaptiveLimiter.Permit permit = limiter == null ? null : limiter.acquire(request);
+            long start = System.nanoTime();
+            Call call = newCall(request, streaming);
+            okhttp3.Response response;
+            try {
+                response = call.execute();
+            } catch (IOException | RuntimeException e) {
+                if (permit != null) {
+                    permit.onFailure(call.isCanceled());
+                }
+                if (e instanceof RuntimeException) {
+                    throw (RuntimeException) e;
+                }
+                long delay = call.isCanceled() ? -1 : policy.retryDelayMillis(request.method(), attempt, -1, null);
+                if (delay < 0) {
+                    throw e;
+                }
+                logger.warn("request fail, retry after {}ms, url:{}, msg:{}", delay, request.url(), e.getMessage());
+                sleep(delay);
+                continue;
+            }
+            if (permit != null) {
+                permit.onResponse(response.code());
+            }
+            long delay = policy.retryDelayMillis(request.method(), attempt, response.code(), response.header("Retry-After"));
+            if (delay < 0) {
+                recordLatency(request, start);
+                return response;
+            }
+            logger.warn("request fail, retry after {}ms, url:{}, stateCode:{}", delay, request.url(), response.code());
+            response.close();
+            sleep(delay);
+        }
+    }
+
+    /**
+     * 异步执行，结果在调度器线程上回调
+     *
+     * @param request   请求
+     * @param streaming 流式读取的请求，取消整体调用超时
+     * @param listener  结果监听
+     * @return 可取消的调用
+     */
+    Cancellable enqueue(Request request, boolean streaming, Listener listener) {
+        if (shouldHedge(request)) {
+            return enqueueHedged(request, streaming, listener);
+        }
+        Attempt attempt = new Attempt();
+        enqueue(request, streaming, listener, attempt, 0);
+        return attempt;
+    }
+
+    private void enqueue(Request request, boolean streaming, Listener listener, Attempt attempt, int retries) {
+        if (limiter == null) {
+            enqueue(request, streaming, listener, attempt, retries, null);
+        } else {
+            limiter.acquire(request, permit -> enqueue(request, streaming, listener, attempt, retries, permit));
+        }
+    }
+
+    private void enqueue(Request request, boolean streaming, Listener listener, Attempt attempt, int retries,
+                         @Nullable AdaptiveLimiter.Permit permit) {
+        if (attempt.canceled) {
+            if (permit != null) {
+                permit.onFailure(true);
+            }
+            listener.onFailure(new IOException("Canceled"));
+            return;
+        }
+        policy.recordRequest();
+        final long start = System.nanoTime();
+        Call call = newCall(request, streaming);
+        attempt.call = call;
+        if (attempt.canceled) {
+            call.cancel();
+        }
+        call.enqueue(new Callback() {
+            @Override
+            @EverythingIsNonNull
+            public void onFailure(Call call, IOException e) {
+                if (permit != null) {
+                    permit.onFailure(call.isCanceled());
+                }
+                long delay = call.isCanceled() ? -1 : policy.retryDelayMillis(request.method(), retries, -1, null);
+                if (delay < 0) {
+                    listener.onFailure(e);
+                    return;
+                }
+                logger.warn("request fail, retry after {}ms, url:{}, msg:{}", delay, request.url(), e.getMessage());
+                SCHEDULER.schedule(() -> enqueue(request, streaming, listener, attempt, retries + 1), delay, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            @EverythingIsNonNull
+            public void onResponse(Call call, okhttp3.Response response) {
+                if (permit != null) {
+                    permit.onResponse(response.code());
+                }
+                long delay = policy.retryDelayMillis(request.method(), retries, response.code(), response.header("Retry-After"));
+                if (delay < 0) {
+                    recordLatency(request, start);
+                    listener.onResponse(response);
+                    return;
+                }
+                logger.warn("request fail, retry after {}ms, url:{}, stateCode:{}", delay, request.url(), response.code());
+                response.close();
+                SCHEDULER.schedule(() -> enqueue(request, streaming, listener, attempt, retries + 1), delay, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private okhttp3.Response executeHedged(Request request, boolean streaming) throws IOException {
+        CompletableFuture<okhttp3.Response> future = new CompletableFuture<>();
+        Cancellable cancellable = enqueueHedged(request, streaming, new Listener() {
+            @Override
+            public void onResponse(okhttp3.Response response) {
+                if (!future.complete(response)) {
+                    response.close();
+                }
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            cancellable.cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    /**
+     * 对冲：先发出一个请求，超过延迟分位数仍未响应时再发出一个，取先响应者，取消另一个
+     * <p>延迟样本为收到响应头的耗时，流式请求与普通请求一致</p>
+     */
+    private Cancellable enqueueHedged(Request request, boolean streaming, Listener listener) {
+        Hedge hedge = new Hedge(listener, streaming);
+        hedge.launch(request);
+        long delay = hedgeDelayMillis();
+        if (delay >= 0) {
+            hedge.timer = SCHEDULER.schedule(() -> {
+                if (!hedge.done.get() && policy.tryAcquire()) {
+                    logger.debug("hedge request after {}ms, url:{}", delay, request.url());
+                    hedge.launch(request);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        return hedge;
+    }
+
+    private boolean shouldHedge(Request request) {
+        return latency != null && "GET".equals(request.method());
+    }
+
+    /**
+     * @return 对冲等待毫秒数，样本不足时为 -1
+     */
+    private long hedgeDelayMillis() {
+        long percentile = latency.percentileMillis();
+        return percentile < 0 ? -1 : Math.max(percentile, policy.getHedgeMinDelayMillis());
+    }
+
+    private void recordLatency(Request request, long startNanos) {
+        if (latency != null && "GET".equals(request.method())) {
+            latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+
+    private Call newCall(Request request, boolean streaming) {
+        Call call = client.newCall(request);
+        if (streaming) {
+            // 响应体大小不定，取消整体调用超时，仅保留连接与读超时
+            call.timeout().timeout(0, TimeUnit.SECONDS);
+        }
+        return call;
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    private static final class Attempt implements Cancellable {
+        private volatile Call call;
+        private volatile boolean canceled;
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            Call current = call;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+
+    private final class Hedge implements Cancellable {
+        private final Listener listener;
+        private final boolean streaming;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final AtomicInteger launched = new AtomicInteger();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Attempt[] attempts = new Attempt[2];
+        private volatile ScheduledFuture<?> timer;
+
+        private Hedge(Listener listener, boolean streaming) {
+            this.listener = listener;
+            this.streaming = streaming;
+        }
+
+        private void launch(Request request) {
+            int index = launched.getAndIncrement();
+            Attempt attempt = new Attempt();
+            attempts[index] = attempt;
+            pending.incrementAndGet();
+            enqueue(request, streaming, new Listener() {
+                @Override
+                public void onResponse(okhttp3.Response response) {
+                    if (done.compareAndSet(false, true)) {
+                        cancelOthers(index);
+                        listener.onResponse(response);
+                    } else {
+                        response.close();
+                    }
+                }
+
+                @Override
+                public void onFailure(IOException e) {
+                    if (pending.decrementAndGet() == 0 && done.compareAndSet(false, true)) {
+                        cancelOthers(index);
+                        listener.onFailure(e);
+                    }
+                }
+            }, attempt, 0);
+        }
+
+        @Override
+        public void cancel() {
+            done.set(true);
+            cancelOthers(-1);
+        }
+
+        private void cancelOthers(int winner) {
+            ScheduledFuture<?> current = timer;
+            if (current != null) {
+                current.cancel(false);
+            }
+            for (int i = 0; i < attempts.length; i++) {
+                if (i != winner && attempts[i] != null) {
+                    attempts[i].cancel();
+                }
+            }
+        }
+    }
+}
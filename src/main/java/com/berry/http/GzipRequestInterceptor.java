@@ -0,0 +1,102 @@
+package com.berry.http;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * Title GzipRequestInterceptor
+ * Description 以 gzip 压缩超过阈值的 JSON、文本请求体，添加 Content-Encoding: gzip
+ * <p>写出时边压缩边发送，不生成完整的压缩副本，压缩后长度未知，以 chunked 方式传输；
+ * 对象内容（octet-stream）与文件上传（multipart）不压缩。JSON 请求体长度未知，按 {@link JsonRequestBody#estimatedLength()} 判断。
+ * 响应由 OkHttp 发送 Accept-Encoding: gzip 协商，服务端压缩时透明解压</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/10/12 10:20
+ */
+final class GzipRequestInterceptor implements Interceptor {
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    /**
+     * 压缩阈值 单位字节
+     */
+    private final long threshold;
+
+    GzipRequestInterceptor(long threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestBody body = request.body();
+        if (body == null || request.header(CONTENT_ENCODING) != null || !isCompressible(body.contentType()) || length(body) < threshold) {
+            return chain.proceed(request);
+        }
+        Request compressed = request.newBuilder()
+                .header(CONTENT_ENCODING, "gzip")
+                .method(request.method(), new GzipRequestBody(body))
+                .build();
+        return chain.proceed(compressed);
+    }
+
+    // ～ private
+    //=======================================================================================================================
+
+    private static boolean isCompressible(@Nullable MediaType type) {
+        if (type == null) {
+            return false;
+        }
+        String subtype = type.subtype();
+        return "text".equals(type.type()) || "json".equals(subtype) || subtype.endsWith("+json") || "x-www-form-urlencoded".equals(subtype);
+    }
+
+    private static long length(RequestBody body) throws IOException {
+        long length = body.contentLength();
+        if (length >= 0) {
+            return length;
+        }
+        return body instanceof JsonRequestBody ? ((JsonRequestBody) body).estimatedLength() : Long.MAX_VALUE;
+    }
+
+    private static final class GzipRequestBody extends RequestBody {
+        private final RequestBody body;
+
+        private GzipRequestBody(RequestBody body) {
+            this.body = body;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return -1;
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return body.isOneShot();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            // 关闭 gzip 以写出尾部，底层 sink 由 OkHttp 结束 chunked 编码
+            BufferedSink gzip = Okio.buffer(new GzipSink(sink));
+            body.writeTo(gzip);
+            gzip.close();
+        }
+    }
+}
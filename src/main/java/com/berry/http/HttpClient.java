@@ -2,12 +2,14 @@ package com.berry.http;
 
 import com.berry.common.Constants;
 import com.berry.common.OssException;
+import com.berry.util.GsonCodec;
+import com.berry.util.Json;
+import com.berry.util.JsonCodec;
 import com.berry.util.StringMap;
 import com.berry.util.StringUtils;
-import com.google.gson.Gson;
+import com.berry.util.VirtualThreads;
 import com.google.gson.GsonBuilder;
 import okhttp3.*;
-import okhttp3.internal.annotations.EverythingIsNonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,6 +17,8 @@ import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static com.berry.common.Constants.JSON_MIME;
@@ -32,9 +36,9 @@ public class HttpClient {
     private static final Logger logger = LoggerFactory.getLogger(HttpClient.class);
 
     /**
-     * 默认 http 客户端
+     * 默认 http 客户端，所有实例基于其派生，共享连接池与调度器
      */
-    private static OkHttpClient CLIENT;
+    private static final OkHttpClient BASE_CLIENT;
     /**
      * 连接超时时间 单位秒(默认10s)
      */
@@ -55,6 +59,14 @@ public class HttpClient {
      * 底层HTTP库对每个独立的Host进行并发请求的数量
      */
     private static final int DISPATCHER_MAX_REQUESTS_PER_HOST = 16;
+    /**
+     * 启用虚拟线程或自适应并发时调度器的并发数量
+     */
+    private static final int WIDE_DISPATCHER_MAX_REQUESTS = 1024;
+    /**
+     * 启用虚拟线程或自适应并发时单 host 并发数量，自适应并发时实际并发由 {@link AdaptiveLimiter} 控制
+     */
+    private static final int WIDE_DISPATCHER_MAX_REQUESTS_PER_HOST = AdaptiveLimiter.MAX_LIMIT;
     /**
      * 底层HTTP库中复用连接对象的最大空闲数量
      */
@@ -64,34 +76,88 @@ public class HttpClient {
      */
     private static final int CONNECTION_POOL_MAX_IDLE_MINUTES = 5;
 
-    private static final String APPLICATION_JSON_UTF8_VALUE = "application/json;charset=UTF-8";
+    /**
+     * 复杂 map key 序列化依赖 Gson 特性，不随 {@link Json#setCodec(JsonCodec)} 替换
+     */
+    private static final JsonCodec COMPLEX_CODEC = new GsonCodec(new GsonBuilder().enableComplexMapKeySerialization().create());
+
+    private static final Dispatcher DISPATCHER = new Dispatcher();
+    private static final ConnectionPool POOL = new ConnectionPool(CONNECTION_POOL_MAX_IDLE_COUNT, CONNECTION_POOL_MAX_IDLE_MINUTES, TimeUnit.MINUTES);
 
-    private static Dispatcher dispatcher = new Dispatcher();
-    private static ConnectionPool pool = new ConnectionPool(CONNECTION_POOL_MAX_IDLE_COUNT, CONNECTION_POOL_MAX_IDLE_MINUTES, TimeUnit.MINUTES);
+    /**
+     * 虚拟线程、自适应并发对应的调度器，下标为 (virtualThreads ? 2 : 0) | (adaptive ? 1 : 0)，首次使用时创建
+     */
+    private static final Dispatcher[] DISPATCHERS = new Dispatcher[4];
+    /**
+     * 自适应并发限制，所有启用的客户端共享
+     */
+    private static final AdaptiveLimiter LIMITER = new AdaptiveLimiter();
 
     static {
-        dispatcher.setMaxRequests(DISPATCHER_MAX_REQUESTS);
-        dispatcher.setMaxRequestsPerHost(DISPATCHER_MAX_REQUESTS_PER_HOST);
-        CLIENT = new OkHttpClient.Builder()
+        DISPATCHER.setMaxRequests(DISPATCHER_MAX_REQUESTS);
+        DISPATCHER.setMaxRequestsPerHost(DISPATCHER_MAX_REQUESTS_PER_HOST);
+        DISPATCHERS[0] = DISPATCHER;
+        BASE_CLIENT = new OkHttpClient.Builder()
                 .callTimeout(CALL_TIMEOUT, TimeUnit.SECONDS)
                 .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
                 .readTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
-                .dispatcher(dispatcher)
-                .connectionPool(pool)
+                .dispatcher(DISPATCHER)
+                .connectionPool(POOL)
                 .build();
     }
 
+    /**
+     * 当前实例使用的客户端，创建后不可变，可在多线程间共享
+     */
+    private final CallExecutor executor;
+
     public HttpClient() {
+        this.executor = new CallExecutor(BASE_CLIENT, RetryPolicy.none(), null);
     }
 
+    /**
+     * 基于默认客户端派生，仅超时设置不同，连接池与调度器共享
+     *
+     * @param timeout 超时时间 单位秒
+     */
     public HttpClient(int timeout) {
-        CLIENT = new OkHttpClient.Builder()
+        this(HttpClientOptions.builder().timeout(timeout).build());
+    }
+
+    /**
+     * 基于默认客户端派生，连接池共享；调度器按是否启用虚拟线程、自适应并发区分，相同组合的客户端共享
+     *
+     * @param options 传输配置
+     */
+    public HttpClient(HttpClientOptions options) {
+        boolean virtualThreads = options.isVirtualThreads();
+        if (virtualThreads && !VirtualThreads.isAvailable()) {
+            logger.warn("virtual threads not available on java {}, use platform threads", System.getProperty("java.version"));
+            virtualThreads = false;
+        }
+        boolean adaptive = options.isAdaptiveConcurrency();
+        int timeout = options.getTimeout();
+        OkHttpClient.Builder builder = BASE_CLIENT.newBuilder()
                 .callTimeout(timeout, TimeUnit.SECONDS)
                 .connectTimeout(timeout, TimeUnit.SECONDS)
                 .readTimeout(timeout * 3, TimeUnit.SECONDS)
-                .dispatcher(dispatcher)
-                .connectionPool(pool)
-                .build();
+                .dispatcher(dispatcher(virtualThreads, adaptive))
+                .protocols(options.getProtocol().protocols());
+        if (options.getCompressionThreshold() > 0) {
+            builder.addInterceptor(new GzipRequestInterceptor(options.getCompressionThreshold()));
+        }
+        OkHttpClient client = builder.build();
+        if (options.getMetrics() != null) {
+            client = options.getMetrics().instrument(client, adaptive ? LIMITER : null);
+        }
+        this.executor = new CallExecutor(client, options.getRetryPolicy(), adaptive ? LIMITER : null);
+    }
+
+    /**
+     * @return 调度器线程池，异步请求的回调在其中执行；启用虚拟线程时每个任务一个虚拟线程
+     */
+    public ExecutorService dispatcherExecutor() {
+        return executor.client().dispatcher().executorService();
     }
 
     /**
@@ -132,6 +198,47 @@ public class HttpClient {
         return send(requestBuilder, header);
     }
 
+    /**
+     * Get 请求，成功时不读取响应体，由调用方从 {@link Response#getBodyStream()} 流式读取
+     * <p>非成功或 JSON 响应（一般为错误信息，体积较小）仍按普通响应读取</p>
+     *
+     * @param url    地址
+     * @param header 请求头 map
+     * @return 响应，调用方负责关闭 bodyStream
+     */
+    public Response getStream(String url, StringMap header) throws OssException {
+        Request.Builder requestBuilder = new Request.Builder().get().url(url);
+        okhttp3.Response response;
+        try {
+            response = executor.execute(build(requestBuilder, header), true);
+        } catch (Exception e) {
+            throw new OssException(e.getMessage());
+        }
+        return createStreaming(response);
+    }
+
+    /**
+     * 异步 Get 请求，响应规则同 {@link #getStream(String, StringMap)}，回调中负责关闭 bodyStream
+     *
+     * @param url    地址
+     * @param header 请求头 map
+     * @param cb     异步回调
+     */
+    public void asyncGetStream(String url, StringMap header, AsyncCallback cb) {
+        Request.Builder requestBuilder = new Request.Builder().get().url(url);
+        executor.enqueue(build(requestBuilder, header), true, new CallExecutor.Listener() {
+            @Override
+            public void onResponse(okhttp3.Response response) {
+                cb.complete(createStreaming(response));
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                cb.complete(Response.create(null, e.getMessage()));
+            }
+        });
+    }
+
     /**
      * Form 表单请求 （application/x-www-form-urlencoded）
      *
@@ -156,12 +263,17 @@ public class HttpClient {
     }
 
     /**
-     * 复杂Map（包含字节数组）对象 以 json 格式请求，
+     * 参数 map 以 json 格式请求，请求体流式序列化，不生成完整 json 字符串
+     */
+    public Response postJson(String url, StringMap params, StringMap header) throws OssException {
+        return post(url, new JsonRequestBody(Json.codec(), params.map()), header);
+    }
+
+    /**
+     * 复杂Map（包含字节数组）对象 以 json 格式请求，请求体流式序列化
      */
     public Response postComplex(String url, StringMap params, StringMap header) throws OssException {
-        Gson gson = new GsonBuilder().enableComplexMapKeySerialization().create();
-        RequestBody requestBody = RequestBody.create(MediaType.get(APPLICATION_JSON_UTF8_VALUE), gson.toJson(params.map()));
-        return post(url, requestBody, header);
+        return post(url, new JsonRequestBody(COMPLEX_CODEC, params.map()), header);
     }
 
     /**
@@ -179,6 +291,22 @@ public class HttpClient {
         return post(url, requestBody, header);
     }
 
+    /**
+     * 请求体为 字节数组片段，指定 媒体类型，不复制字节数组
+     *
+     * @param url         地址
+     * @param body        请求体字节数组
+     * @param offset      请求体偏移
+     * @param size        请求体实际需要读取大小
+     * @param header      请求头map
+     * @param contentType 请求体类型
+     * @return 响应
+     */
+    public Response post(String url, byte[] body, int offset, int size, StringMap header, String contentType) throws OssException {
+        RequestBody requestBody = RequestBody.create(MediaType.parse(contentType), body, offset, size);
+        return post(url, requestBody, header);
+    }
+
     /**
      * 批量文件上传
      */
@@ -187,19 +315,7 @@ public class HttpClient {
                                   String field,
                                   File[] files,
                                   StringMap headers) throws OssException {
-        final MultipartBody.Builder mb = new MultipartBody.Builder();
-        for (File file : files) {
-            RequestBody fileBody = RequestBody.create(MediaType.parse(Constants.MULTIPART_MIME), file);
-            mb.addFormDataPart(field, file.getName(), fileBody);
-        }
-        if (fields != null) {
-            for (Map.Entry<String, Object> entry : fields.entrySet()) {
-                mb.addFormDataPart(entry.getKey(), entry.getValue().toString());
-            }
-        }
-        mb.setType(MediaType.get("multipart/form-data"));
-        RequestBody body = mb.build();
-        Request.Builder requestBuilder = new Request.Builder().url(url).post(body);
+        Request.Builder requestBuilder = new Request.Builder().url(url).post(multipartBody(fields, field, files));
         return send(requestBuilder, headers);
     }
 
@@ -262,9 +378,78 @@ public class HttpClient {
         asyncMultipartPost(url, fields, name, fileName, file, headers, cb);
     }
 
+    /**
+     * 异步 Get 请求
+     *
+     * @param url     地址
+     * @param header  请求头 map
+     * @param handler 响应处理
+     * @param <T>     结果类型
+     * @return 结果 future，处理失败时以 OssException 异常结束
+     */
+    public <T> CompletableFuture<T> getAsync(String url, StringMap header, ResponseHandler<T> handler) {
+        Request.Builder requestBuilder = new Request.Builder().get().url(url);
+        return sendAsync(requestBuilder, header, handler);
+    }
+
+    /**
+     * 异步 json 请求，同 {@link #postJson(String, StringMap, StringMap)}
+     */
+    public <T> CompletableFuture<T> postJsonAsync(String url, StringMap params, StringMap header, ResponseHandler<T> handler) {
+        Request.Builder requestBuilder = new Request.Builder().url(url).post(new JsonRequestBody(Json.codec(), params.map()));
+        return sendAsync(requestBuilder, header, handler);
+    }
+
+    /**
+     * 异步 json 请求，同 {@link #postComplex(String, StringMap, StringMap)}
+     */
+    public <T> CompletableFuture<T> postComplexAsync(String url, StringMap params, StringMap header, ResponseHandler<T> handler) {
+        Request.Builder requestBuilder = new Request.Builder().url(url).post(new JsonRequestBody(COMPLEX_CODEC, params.map()));
+        return sendAsync(requestBuilder, header, handler);
+    }
+
+    /**
+     * 异步 post，请求体为 字节数组片段，同 {@link #post(String, byte[], int, int, StringMap, String)}
+     */
+    public <T> CompletableFuture<T> postAsync(String url, byte[] body, int offset, int size, StringMap header, String contentType, ResponseHandler<T> handler) {
+        RequestBody requestBody = RequestBody.create(MediaType.parse(contentType), body, offset, size);
+        Request.Builder requestBuilder = new Request.Builder().url(url).post(requestBody);
+        return sendAsync(requestBuilder, header, handler);
+    }
+
+    /**
+     * 异步批量文件上传，同 {@link #multipartPost(String, StringMap, String, File[], StringMap)}
+     */
+    public <T> CompletableFuture<T> multipartPostAsync(String url,
+                                                       StringMap fields,
+                                                       String field,
+                                                       File[] files,
+                                                       StringMap headers,
+                                                       ResponseHandler<T> handler) {
+        Request.Builder requestBuilder = new Request.Builder().url(url).post(multipartBody(fields, field, files));
+        return sendAsync(requestBuilder, headers, handler);
+    }
+
     // ～ private
     //=======================================================================================================================
 
+    /**
+     * 获取调度器，不存在时创建
+     * <p>虚拟线程不必为节省线程限制并发，自适应并发由限制器控制单 host 并发，两者均放宽调度器的并发上限</p>
+     */
+    private static synchronized Dispatcher dispatcher(boolean virtualThreads, boolean adaptive) {
+        int index = (virtualThreads ? 2 : 0) | (adaptive ? 1 : 0);
+        Dispatcher dispatcher = DISPATCHERS[index];
+        if (dispatcher == null) {
+            dispatcher = virtualThreads ? new Dispatcher(VirtualThreads.newExecutor("OkHttp Dispatcher-virtual-")) : new Dispatcher();
+            boolean wide = virtualThreads || adaptive;
+            dispatcher.setMaxRequests(wide ? WIDE_DISPATCHER_MAX_REQUESTS : DISPATCHER_MAX_REQUESTS);
+            dispatcher.setMaxRequestsPerHost(wide ? WIDE_DISPATCHER_MAX_REQUESTS_PER_HOST : DISPATCHER_MAX_REQUESTS_PER_HOST);
+            DISPATCHERS[index] = dispatcher;
+        }
+        return dispatcher;
+    }
+
     /**
      * 异步文件上传
      *
@@ -276,13 +461,13 @@ public class HttpClient {
      * @param header   请求头 可为空
      * @param cb       异步回调
      */
-    private static void asyncMultipartPost(String url,
-                                           StringMap fields,
-                                           String name,
-                                           String fileName,
-                                           RequestBody file,
-                                           StringMap header,
-                                           AsyncCallback cb) {
+    private void asyncMultipartPost(String url,
+                                    StringMap fields,
+                                    String name,
+                                    String fileName,
+                                    RequestBody file,
+                                    StringMap header,
+                                    AsyncCallback cb) {
         Request.Builder requestBuilder = getBuilder(url, fields, name, fileName, file);
         asyncSend(requestBuilder, header, cb);
     }
@@ -295,12 +480,35 @@ public class HttpClient {
      * @param header 请求头
      * @return 响应
      */
-    private static Response post(String url, RequestBody body, StringMap header) throws OssException {
+    private Response post(String url, RequestBody body, StringMap header) throws OssException {
         Request.Builder requestBuilder = new Request.Builder().url(url).post(body);
         return send(requestBuilder, header);
     }
 
 
+    /**
+     * 批量文件 multipart 请求体
+     *
+     * @param fields 字段信息 data part
+     * @param field  文件接受字段名
+     * @param files  文件
+     * @return 请求体
+     */
+    private static RequestBody multipartBody(StringMap fields, String field, File[] files) {
+        final MultipartBody.Builder mb = new MultipartBody.Builder();
+        for (File file : files) {
+            RequestBody fileBody = RequestBody.create(MediaType.parse(Constants.MULTIPART_MIME), file);
+            mb.addFormDataPart(field, file.getName(), fileBody);
+        }
+        if (fields != null) {
+            for (Map.Entry<String, Object> entry : fields.entrySet()) {
+                mb.addFormDataPart(entry.getKey(), entry.getValue().toString());
+            }
+        }
+        mb.setType(MediaType.get("multipart/form-data"));
+        return mb.build();
+    }
+
     /**
      * 获取文件上传 builder
      *
@@ -331,26 +539,33 @@ public class HttpClient {
      * @param header         请求头
      * @return 响应
      */
-    private static Response send(final Request.Builder requestBuilder, @Nullable StringMap header) throws OssException {
-        if (header != null) {
-            for (Map.Entry<String, Object> entry : header.entrySet()) {
-                requestBuilder.header(entry.getKey(), entry.getValue().toString());
-            }
+    private Response send(final Request.Builder requestBuilder, @Nullable StringMap header) throws OssException {
+        okhttp3.Response response = execute(requestBuilder, header);
+        if (!response.isSuccessful()) {
+            logger.error("request fail,stateCode:{}, msg:{}", response.code(), response.message());
         }
-        requestBuilder.header("User-Agent", userAgent());
-        okhttp3.Response response;
+        return Response.create(response, null);
+    }
+
+    /**
+     * 执行请求，响应体未读取
+     *
+     * @param requestBuilder 请求构建器
+     * @param header         请求头
+     * @return 原始响应
+     */
+    private okhttp3.Response execute(final Request.Builder requestBuilder, @Nullable StringMap header) throws OssException {
         try {
-            response = CLIENT.newCall(requestBuilder.build()).execute();
-            if (!response.isSuccessful()) {
-                int code = response.code();
-                String resMsg = response.body() != null ? response.body().string() : "";
-                String msg = response.message() + "," + resMsg;
-                response.close();
-                logger.error("request fail,stateCode:{}, msg:{}", code, msg);
-            }
+            return executor.execute(build(requestBuilder, header), false);
         } catch (Exception e) {
             throw new OssException(e.getMessage());
         }
+    }
+
+    private static Response createStreaming(okhttp3.Response response) {
+        if (response.isSuccessful() && !Response.isJson(response)) {
+            return Response.createStreaming(response);
+        }
         return Response.create(response, null);
     }
 
@@ -361,26 +576,72 @@ public class HttpClient {
      * @param header         请求头 map
      * @param cb             异步回调
      */
-    private static void asyncSend(final Request.Builder requestBuilder, @Nullable StringMap header, final AsyncCallback cb) {
-        if (header != null) {
-            for (Map.Entry<String, Object> entry : header.entrySet()) {
-                requestBuilder.header(entry.getKey(), entry.getValue().toString());
+    private void asyncSend(final Request.Builder requestBuilder, @Nullable StringMap header, final AsyncCallback cb) {
+        executor.enqueue(build(requestBuilder, header), false, new CallExecutor.Listener() {
+            @Override
+            public void onResponse(okhttp3.Response response) {
+                cb.complete(Response.create(response, null));
             }
-        }
-        requestBuilder.header("User-Agent", userAgent());
-        CLIENT.newCall(requestBuilder.build()).enqueue(new Callback() {
+
             @Override
-            @EverythingIsNonNull
-            public void onFailure(Call call, IOException e) {
+            public void onFailure(IOException e) {
                 cb.complete(Response.create(null, e.getMessage()));
             }
+        });
+    }
 
+    /**
+     * 发送异步请求，响应在调度线程上交由 handler 处理
+     * <p>future 被取消时同时取消请求</p>
+     *
+     * @param requestBuilder 请求构建器
+     * @param header         请求头 map
+     * @param handler        响应处理
+     * @return 结果 future
+     */
+    private <T> CompletableFuture<T> sendAsync(final Request.Builder requestBuilder, @Nullable StringMap header, final ResponseHandler<T> handler) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final CallExecutor.Cancellable call = executor.enqueue(build(requestBuilder, header), false, new CallExecutor.Listener() {
             @Override
-            @EverythingIsNonNull
-            public void onResponse(Call call, okhttp3.Response response) {
-                cb.complete(Response.create(response, null));
+            public void onFailure(IOException e) {
+                future.completeExceptionally(new OssException(e.getMessage()));
+            }
+
+            @Override
+            public void onResponse(okhttp3.Response response) {
+                if (!response.isSuccessful()) {
+                    logger.error("request fail,stateCode:{}, msg:{}", response.code(), response.message());
+                }
+                try {
+                    future.complete(handler.handle(Response.create(response, null)));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        future.whenComplete((r, e) -> {
+            if (future.isCancelled()) {
+                call.cancel();
             }
         });
+        return future;
+    }
+
+    /**
+     * 设置请求头，构建请求
+     *
+     * @param requestBuilder 请求构建器
+     * @param header         请求头 map
+     * @return 请求
+     */
+    private static Request build(final Request.Builder requestBuilder, @Nullable StringMap header) {
+        if (header != null) {
+            for (Map.Entry<String, Object> entry : header.entrySet()) {
+                requestBuilder.header(entry.getKey(), entry.getValue().toString());
+            }
+        }
+        requestBuilder.header("User-Agent", userAgent());
+        return requestBuilder.build();
     }
 
     /**
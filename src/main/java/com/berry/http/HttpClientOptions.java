@@ -0,0 +1,168 @@
+package com.berry.http;
+
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+/**
+ * Title HttpClientOptions
+ * Description {@link HttpClient} 的传输配置：超时、重试、耗时统计、虚拟线程、自适应并发、协议与请求压缩
+ * <p>不可变，equals/hashCode 覆盖全部字段；重试策略与耗时统计按实例比较</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/10/14 10:20
+ */
+public final class HttpClientOptions {
+
+    private final int timeout;
+    private final RetryPolicy retryPolicy;
+    @Nullable
+    private final HttpMetrics metrics;
+    private final boolean virtualThreads;
+    private final boolean adaptiveConcurrency;
+    private final HttpProtocol protocol;
+    private final long compressionThreshold;
+
+    private HttpClientOptions(Builder builder) {
+        this.timeout = builder.timeout;
+        this.retryPolicy = builder.retryPolicy;
+        this.metrics = builder.metrics;
+        this.virtualThreads = builder.virtualThreads;
+        this.adaptiveConcurrency = builder.adaptiveConcurrency;
+        this.protocol = builder.protocol;
+        this.compressionThreshold = builder.compressionThreshold;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    @Nullable
+    public HttpMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public boolean isAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    public HttpProtocol getProtocol() {
+        return protocol;
+    }
+
+    public long getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HttpClientOptions options = (HttpClientOptions) o;
+        return timeout == options.timeout
+                && virtualThreads == options.virtualThreads
+                && adaptiveConcurrency == options.adaptiveConcurrency
+                && compressionThreshold == options.compressionThreshold
+                && protocol == options.protocol
+                && Objects.equals(retryPolicy, options.retryPolicy)
+                && Objects.equals(metrics, options.metrics);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timeout, retryPolicy, metrics, virtualThreads, adaptiveConcurrency, protocol, compressionThreshold);
+    }
+
+    public static final class Builder {
+        private int timeout = 10;
+        private RetryPolicy retryPolicy = RetryPolicy.none();
+        private HttpMetrics metrics;
+        private boolean virtualThreads;
+        private boolean adaptiveConcurrency;
+        private HttpProtocol protocol = HttpProtocol.HTTP_2;
+        private long compressionThreshold;
+
+        private Builder() {
+        }
+
+        /**
+         * 超时时间 单位秒，同时用于建连与整个请求，读超时为其 3 倍，默认 10
+         */
+        public Builder timeout(int timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 重试策略，默认不重试
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy == null ? RetryPolicy.none() : retryPolicy;
+            return this;
+        }
+
+        /**
+         * 耗时统计，默认为空即不统计
+         */
+        public Builder metrics(@Nullable HttpMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * 异步请求与回调是否在虚拟线程中执行，JDK 21 以下忽略，默认否；
+         * 为 true 时使用单独的调度器，并发上限放宽到 1024、单 host 256。
+         * 同步请求始终在调用线程执行，不受影响，需要时由调用方在虚拟线程中调用，
+         * 如 {@link com.berry.util.VirtualThreads#newExecutor(String)}
+         */
+        public Builder virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * 是否按服务端耗时与错误自适应调整单 host 并发数，默认否，即固定为 16；
+         * 为 true 时使用单独的调度器，单 host 并发上限由自适应限制控制
+         */
+        public Builder adaptiveConcurrency(boolean adaptiveConcurrency) {
+            this.adaptiveConcurrency = adaptiveConcurrency;
+            return this;
+        }
+
+        /**
+         * http 协议，默认 HTTP_2；连接池按协议区分连接，不同协议的客户端不会复用对方的连接
+         */
+        public Builder protocol(HttpProtocol protocol) {
+            this.protocol = protocol == null ? HttpProtocol.HTTP_2 : protocol;
+            return this;
+        }
+
+        /**
+         * JSON、文本请求体不小于该字节数时以 gzip 压缩，默认 0 即不压缩
+         */
+        public Builder compressionThreshold(long compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+            return this;
+        }
+
+        public HttpClientOptions build() {
+            return new HttpClientOptions(this);
+        }
+    }
+}
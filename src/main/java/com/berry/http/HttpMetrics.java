@@ -0,0 +1,258 @@
+package com.berry.http;
+
+import com.berry.storage.url.UrlFactory;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Title HttpMetrics
+ * Description 请求各阶段耗时统计：DNS、建连、TLS、写请求、首字节、读响应体与整体耗时
+ * <p>按接口（{@link UrlFactory} 枚举名）、bucket、状态码分组记录到直方图，重试与对冲的每次尝试分别计入；
+ * 同时统计连接复用率、调度器排队数与自适应并发上限。
+ * 通过 {@link com.berry.storage.Config#setMetrics(HttpMetrics)} 启用，多个配置可共享同一实例，
+ * 此时连接池与调度器状态为各客户端所用连接池、调度器（相同的只计一次）的合计</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/23 10:40
+ */
+public final class HttpMetrics {
+
+    private static final String PREFIX = "oss.http.";
+    private static final String FILE_PREFIX = "/ajax/bucket/file/";
+    private static final String UNKNOWN_ENDPOINT = "unknown";
+    private static final String FAILED_STATUS = "failed";
+
+    private static final Map<String, String> ENDPOINTS = new HashMap<>();
+
+    static {
+        for (UrlFactory.BucketUr url : UrlFactory.BucketUr.values()) {
+            ENDPOINTS.put(url.getUrl(), url.name());
+        }
+        for (UrlFactory.ObjectUrl url : UrlFactory.ObjectUrl.values()) {
+            if (url != UrlFactory.ObjectUrl.get_object) {
+                ENDPOINTS.put(url.getUrl(), url.name());
+            }
+        }
+    }
+
+    /**
+     * 请求阶段
+     */
+    enum Phase {
+        DNS("dns"),
+        CONNECT("connect"),
+        TLS("tls"),
+        REQUEST_WRITE("request_write"),
+        TIME_TO_FIRST_BYTE("ttfb"),
+        RESPONSE_READ("response_read"),
+        CALL("call");
+
+        private final String metric;
+
+        Phase(String metric) {
+            this.metric = PREFIX + metric;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final ConcurrentMap<Tags, Histogram[]> histograms = new ConcurrentHashMap<>();
+    private final Histogram queued = new Histogram();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    /**
+     * 已添加统计的客户端所用的调度器、连接池与自适应并发限制，均为进程内共享的有限几个实例
+     */
+    private final Set<Dispatcher> dispatchers = new CopyOnWriteArraySet<>();
+    private final Set<ConnectionPool> pools = new CopyOnWriteArraySet<>();
+    private final Set<AdaptiveLimiter> limiters = new CopyOnWriteArraySet<>();
+
+    /**
+     * 为客户端添加耗时统计，连接池与调度器共享；可多次调用，各客户端的状态合计导出
+     *
+     * @param client  客户端
+     * @param limiter 客户端使用的自适应并发限制，可空
+     * @return 新客户端
+     */
+    OkHttpClient instrument(OkHttpClient client, @Nullable AdaptiveLimiter limiter) {
+        Dispatcher dispatcher = client.dispatcher();
+        dispatchers.add(dispatcher);
+        pools.add(client.connectionPool());
+        if (limiter != null) {
+            limiters.add(limiter);
+        }
+        return client.newBuilder().eventListenerFactory(call -> new MetricsEventListener(this, dispatcher)).build();
+    }
+
+    /**
+     * 导出全部指标
+     * <ul>
+     * <li>oss.http.{dns, connect, tls, request_write, ttfb, response_read, call}：耗时直方图，
+     * 标签 endpoint、bucket（可解析时）、status（失败为 failed）</li>
+     * <li>oss.http.dispatcher.queued：每次请求开始时所在调度器的排队数</li>
+     * <li>oss.http.pool.*、oss.http.dispatcher.*：连接池与调度器当前状态，多个时为合计</li>
+     * <li>oss.http.limiter.{limit, in_flight, decreases}：启用自适应并发时各 host 的当前上限、并发数与累计下调次数，标签 host</li>
+     * </ul>
+     *
+     * @param sink 导出目标
+     */
+    public void export(MetricsSink sink) {
+        for (Map.Entry<Tags, Histogram[]> entry : histograms.entrySet()) {
+            Map<String, String> tags = entry.getKey().asMap();
+            Histogram[] phases = entry.getValue();
+            for (Phase phase : PHASES) {
+                Histogram.Snapshot snapshot = phases[phase.ordinal()].snapshot();
+                if (snapshot.getCount() > 0) {
+                    sink.histogram(phase.metric, tags, snapshot);
+                }
+            }
+        }
+        Map<String, String> none = Collections.emptyMap();
+        sink.histogram(PREFIX + "dispatcher.queued", none, queued.snapshot());
+        long acquiredCount = acquired.sum();
+        sink.gauge(PREFIX + "pool.acquired", none, acquiredCount);
+        sink.gauge(PREFIX + "pool.reused", none, reused.sum());
+        sink.gauge(PREFIX + "pool.reuse_ratio", none, acquiredCount == 0 ? 0 : (double) reused.sum() / acquiredCount);
+        if (!pools.isEmpty()) {
+            long connections = 0;
+            long idle = 0;
+            for (ConnectionPool pool : pools) {
+                connections += pool.connectionCount();
+                idle += pool.idleConnectionCount();
+            }
+            sink.gauge(PREFIX + "pool.connections", none, connections);
+            sink.gauge(PREFIX + "pool.idle_connections", none, idle);
+        }
+        if (!dispatchers.isEmpty()) {
+            long queuedCalls = 0;
+            long runningCalls = 0;
+            long maxRequests = 0;
+            long maxRequestsPerHost = 0;
+            for (Dispatcher dispatcher : dispatchers) {
+                queuedCalls += dispatcher.queuedCallsCount();
+                runningCalls += dispatcher.runningCallsCount();
+                maxRequests += dispatcher.getMaxRequests();
+                maxRequestsPerHost += dispatcher.getMaxRequestsPerHost();
+            }
+            sink.gauge(PREFIX + "dispatcher.queued_calls", none, queuedCalls);
+            sink.gauge(PREFIX + "dispatcher.running_calls", none, runningCalls);
+            sink.gauge(PREFIX + "dispatcher.max_requests", none, maxRequests);
+            sink.gauge(PREFIX + "dispatcher.max_requests_per_host", none, maxRequestsPerHost);
+        }
+        for (AdaptiveLimiter limiter : limiters) {
+            limiter.export(sink, PREFIX);
+        }
+    }
+
+    // ～ package
+    //=======================================================================================================================
+
+    void callStarted(Dispatcher dispatcher) {
+        queued.record(dispatcher.queuedCallsCount());
+    }
+
+    void connectionAcquired(boolean reuse) {
+        acquired.increment();
+        if (reuse) {
+            reused.increment();
+        }
+    }
+
+    /**
+     * @param durations 各阶段耗时（纳秒），未经历的阶段为负数
+     */
+    void record(Request request, int status, @Nullable Object body, long[] durations) {
+        Tags tags = new Tags(request.url(), body, status);
+        Histogram[] phases = histograms.get(tags);
+        if (phases == null) {
+            phases = histograms.computeIfAbsent(tags, k -> {
+                Histogram[] created = new Histogram[PHASES.length];
+                for (int i = 0; i < created.length; i++) {
+                    created[i] = new Histogram();
+                }
+                return created;
+            });
+        }
+        for (int i = 0; i < durations.length; i++) {
+            if (durations[i] >= 0) {
+                phases[i].record(durations[i]);
+            }
+        }
+    }
+
+    // ～ private
+    //=======================================================================================================================
+
+    /**
+     * 分组标签，bucket 依次取自对象地址、url 参数、JSON 请求体
+     */
+    private static final class Tags {
+        private final String endpoint;
+        private final String bucket;
+        private final String status;
+
+        private Tags(HttpUrl url, @Nullable Object body, int status) {
+            String path = url.encodedPath();
+            String bucketName = null;
+            if (path.startsWith(FILE_PREFIX)) {
+                this.endpoint = UrlFactory.ObjectUrl.get_object.name();
+                int end = path.indexOf('/', FILE_PREFIX.length());
+                bucketName = end < 0 ? null : path.substring(FILE_PREFIX.length(), end);
+            } else {
+                this.endpoint = ENDPOINTS.getOrDefault(path, UNKNOWN_ENDPOINT);
+                if (url.encodedQuery() != null) {
+                    bucketName = url.queryParameter("bucket");
+                }
+                if (bucketName == null && body instanceof Map) {
+                    Object value = ((Map<?, ?>) body).get("bucket");
+                    bucketName = value == null ? null : value.toString();
+                }
+            }
+            this.bucket = bucketName;
+            this.status = status < 0 ? FAILED_STATUS : String.valueOf(status);
+        }
+
+        private Map<String, String> asMap() {
+            Map<String, String> map = new LinkedHashMap<>(4);
+            map.put("endpoint", endpoint);
+            if (bucket != null) {
+                map.put("bucket", bucket);
+            }
+            map.put("status", status);
+            return Collections.unmodifiableMap(map);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Tags)) {
+                return false;
+            }
+            Tags tags = (Tags) o;
+            return endpoint.equals(tags.endpoint) && Objects.equals(bucket, tags.bucket) && status.equals(tags.status);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(endpoint, bucket, status);
+        }
+    }
+}
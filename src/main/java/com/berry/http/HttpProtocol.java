@@ -0,0 +1,48 @@
+package com.berry.http;
+
+import okhttp3.Protocol;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Title HttpProtocol
+ * Description 与服务端通信使用的 http 协议
+ * <p>HTTP/2 的多个请求复用同一连接，适合大量并发的小请求（元数据、签名链接）；
+ * 大对象传输受单连接流量控制窗口限制，HTTP/1.1 多连接通常不慢于 HTTP/2</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/10/11 10:10
+ */
+public enum HttpProtocol {
+
+    /**
+     * 只使用 HTTP/1.1，每个并发请求占用一个连接
+     */
+    HTTP_1_1(Protocol.HTTP_1_1),
+
+    /**
+     * https 地址通过 TLS ALPN 协商 HTTP/2，服务端或 JDK 不支持时使用 HTTP/1.1；http 地址使用 HTTP/1.1
+     */
+    HTTP_2(Protocol.HTTP_2, Protocol.HTTP_1_1),
+
+    /**
+     * 明文 HTTP/2（h2c prior knowledge），不经协商直接以 HTTP/2 连接，服务端必须支持；仅用于 http 地址
+     */
+    H2C(Protocol.H2_PRIOR_KNOWLEDGE);
+
+    private final List<Protocol> protocols;
+
+    HttpProtocol(Protocol... protocols) {
+        this.protocols = Collections.unmodifiableList(Arrays.asList(protocols));
+    }
+
+    /**
+     * @return OkHttp 协议列表
+     */
+    List<Protocol> protocols() {
+        return protocols;
+    }
+}
@@ -0,0 +1,100 @@
+package com.berry.http;
+
+import com.berry.common.Constants;
+import com.berry.util.JsonCodec;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Title JsonRequestBody
+ * Description JSON 请求体，写出时直接序列化到连接的输出缓冲，不生成完整的 JSON 字符串及其 UTF-8 副本
+ * <p>长度未知，以 chunked 方式传输</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/12 10:26
+ */
+final class JsonRequestBody extends RequestBody {
+
+    private static final MediaType MEDIA_TYPE = MediaType.get(Constants.JSON_MIME);
+
+    private final JsonCodec codec;
+    private final Object value;
+
+    JsonRequestBody(JsonCodec codec, Object value) {
+        this.codec = codec;
+        this.value = value;
+    }
+
+    /**
+     * @return 待序列化对象
+     */
+    Object value() {
+        return value;
+    }
+
+    /**
+     * 估算序列化后的长度，字符串按字符数计，byte[] 序列化为数字数组按每字节 4 计，其他标量按 8 计，
+     * 用于判断是否压缩、是否作为耗时样本，不序列化
+     */
+    long estimatedLength() {
+        return estimate(value);
+    }
+
+    @Override
+    public MediaType contentType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        // 不关闭 writer，sink 由 OkHttp 管理
+        Writer writer = new OutputStreamWriter(sink.outputStream(), Constants.UTF_8);
+        codec.write(value, writer);
+        writer.flush();
+    }
+
+    private static long estimate(Object value) {
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length() + 2;
+        }
+        long length = 2;
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                length += estimate(entry.getKey()) + estimate(entry.getValue()) + 2;
+            }
+            return length;
+        }
+        if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                length += estimate(item) + 1;
+            }
+            return length;
+        }
+        if (value instanceof byte[]) {
+            // 如 [12,-3,100]，每字节 1-4 个字符加逗号
+            return length + 4L * ((byte[]) value).length;
+        }
+        if (value != null && value.getClass().isArray()) {
+            int size = Array.getLength(value);
+            for (int i = 0; i < size; i++) {
+                length += estimate(Array.get(value, i)) + 1;
+            }
+            return length;
+        }
+        return 8;
+    }
+}
@@ -0,0 +1,60 @@
+package com.berry.http;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Title LatencyTracker
+ * Description 记录最近若干次请求的耗时，用于计算对冲等待时间
+ * <p>分位数每积累一批新样本重新计算一次，读取无锁</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/16 16:02
+ */
+final class LatencyTracker {
+
+    private static final int WINDOW = 512;
+
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    /**
+     * 样本不足时不给出分位数
+     */
+    private static final int MIN_SAMPLES = 32;
+
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+    private final AtomicLong count = new AtomicLong();
+    private final double percentile;
+    private volatile long cached = -1;
+
+    LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    void record(long millis) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % WINDOW), millis);
+        if (n + 1 == MIN_SAMPLES || (n + 1) % RECOMPUTE_INTERVAL == 0 && n + 1 > MIN_SAMPLES) {
+            recompute(Math.min(n + 1, WINDOW));
+        }
+    }
+
+    /**
+     * @return 分位数耗时毫秒，样本不足时为 -1
+     */
+    long percentileMillis() {
+        return cached;
+    }
+
+    private void recompute(long size) {
+        long[] copy = new long[(int) size];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        int index = (int) Math.min(copy.length - 1, Math.ceil(percentile * copy.length) - 1);
+        cached = copy[Math.max(0, index)];
+    }
+}
@@ -0,0 +1,159 @@
+package com.berry.http;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Title MetricsEventListener
+ * Description 单次请求的阶段计时，请求结束时写入 {@link HttpMetrics}
+ * <p>OkHttp 在请求写完、开始阻塞读取响应头时触发 responseHeadersStart，首字节耗时取其到响应头读完，
+ * 即服务端处理与网络往返时间</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/23 11:15
+ */
+final class MetricsEventListener extends EventListener {
+
+    private final HttpMetrics metrics;
+    private final Dispatcher dispatcher;
+    private final long[] durations = new long[HttpMetrics.Phase.values().length];
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestStart;
+    private long responseHeadersStart;
+    private long responseBodyStart;
+    private boolean connecting;
+    private int status = -1;
+
+    /**
+     * @param dispatcher 请求所在客户端的调度器
+     */
+    MetricsEventListener(HttpMetrics metrics, Dispatcher dispatcher) {
+        this.metrics = metrics;
+        this.dispatcher = dispatcher;
+        Arrays.fill(durations, -1);
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+        metrics.callStarted(dispatcher);
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        set(HttpMetrics.Phase.DNS, dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connecting = true;
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, @Nullable Handshake handshake) {
+        set(HttpMetrics.Phase.TLS, secureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, @Nullable Protocol protocol) {
+        set(HttpMetrics.Phase.CONNECT, connectStart);
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, @Nullable Protocol protocol, IOException ioe) {
+        set(HttpMetrics.Phase.CONNECT, connectStart);
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        metrics.connectionAcquired(!connecting);
+        connecting = false;
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        set(HttpMetrics.Phase.REQUEST_WRITE, requestStart);
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        set(HttpMetrics.Phase.REQUEST_WRITE, requestStart);
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        responseHeadersStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        set(HttpMetrics.Phase.TIME_TO_FIRST_BYTE, responseHeadersStart);
+        status = response.code();
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        responseBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        set(HttpMetrics.Phase.RESPONSE_READ, responseBodyStart);
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        end(call, status);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        end(call, -1);
+    }
+
+    private void set(HttpMetrics.Phase phase, long start) {
+        durations[phase.ordinal()] = System.nanoTime() - start;
+    }
+
+    private void end(Call call, int code) {
+        set(HttpMetrics.Phase.CALL, callStart);
+        Request request = call.request();
+        RequestBody body = request.body();
+        metrics.record(request, code, body instanceof JsonRequestBody ? ((JsonRequestBody) body).value() : null, durations);
+    }
+}
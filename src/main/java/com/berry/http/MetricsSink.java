@@ -0,0 +1,32 @@
+package com.berry.http;
+
+import java.util.Map;
+
+/**
+ * Title MetricsSink
+ * Description 指标导出目标，由 {@link HttpMetrics#export(MetricsSink)} 逐项回调，可对接 Micrometer、Prometheus、日志等
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/23 10:05
+ */
+public interface MetricsSink {
+
+    /**
+     * 直方图，耗时单位为纳秒，计数为累计值
+     *
+     * @param name     指标名
+     * @param tags     标签，不可修改
+     * @param snapshot 快照
+     */
+    void histogram(String name, Map<String, String> tags, Histogram.Snapshot snapshot);
+
+    /**
+     * 瞬时值
+     *
+     * @param name  指标名
+     * @param tags  标签，不可修改
+     * @param value 值
+     */
+    void gauge(String name, Map<String, String> tags, double value);
+}
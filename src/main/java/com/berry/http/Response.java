@@ -8,7 +8,13 @@ import okhttp3.MediaType;
 import okhttp3.ResponseBody;
 
 import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Type;
 
 import static org.apache.commons.lang3.StringUtils.isNoneBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -23,6 +29,11 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
  */
 public class Response {
 
+    /**
+     * 超过该字节数的 JSON 响应体流式解码
+     */
+    private static final int STREAM_DECODE_THRESHOLD = 8 * 1024;
+
     private final int code;
     private final String message;
     private final String error;
@@ -30,12 +41,18 @@ public class Response {
     private final String url;
     private final String contentType;
     private byte[] body;
+    private final InputStream bodyStream;
 
     private Response(int code, String message, Headers headers, byte[] body, String url, String contentType, String error) {
+        this(code, message, headers, body, null, url, contentType, error);
+    }
+
+    private Response(int code, String message, Headers headers, byte[] body, InputStream bodyStream, String url, String contentType, String error) {
         this.code = code;
         this.message = message;
         this.headers = headers;
         this.body = body;
+        this.bodyStream = bodyStream;
         this.error = error;
         this.url = url;
         this.contentType = contentType;
@@ -65,6 +82,25 @@ public class Response {
                 error);
     }
 
+    /**
+     * 创建流式响应，响应体不读入内存，由调用方读取并关闭 bodyStream
+     */
+    static Response createStreaming(okhttp3.Response response) {
+        ResponseBody body = response.body();
+        return new Response(response.code(),
+                response.message(),
+                response.headers(),
+                null,
+                body == null ? null : body.byteStream(),
+                response.request().url().toString(),
+                getContentType(response),
+                null);
+    }
+
+    static boolean isJson(okhttp3.Response response) {
+        return getContentType(response).startsWith(Constants.JSON_MIME);
+    }
+
     private static String getContentType(okhttp3.Response response) {
         ResponseBody body = response.body();
         if (body != null) {
@@ -85,11 +121,24 @@ public class Response {
     }
 
     public <T> T jsonToObject(Class<T> clazz) {
-        if (!isJson()) {
+        return jsonToObject((Type) clazz);
+    }
+
+    /**
+     * 响应体按 UTF-8 一次解码为目标类型，较大的响应体流式解码，不生成中间字符串
+     *
+     * @param type 目标类型，可为泛型类型，如 Json.type(Result.class, ObjectInfo.class)
+     * @return 对象，非 JSON 响应时为 null
+     */
+    public <T> T jsonToObject(Type type) {
+        if (!isJson() || body == null) {
             return null;
         }
-        String b = bodyString();
-        return Json.decode(b, clazz);
+        // InputStreamReader 自带 8KB 解码缓冲，小响应体直接转字符串更省
+        Reader reader = body.length <= STREAM_DECODE_THRESHOLD
+                ? new StringReader(bodyString())
+                : new InputStreamReader(new ByteArrayInputStream(body), Constants.UTF_8);
+        return Json.codec().read(reader, type);
     }
 
     public boolean isJson() {
@@ -124,6 +173,13 @@ public class Response {
         return body;
     }
 
+    /**
+     * 流式响应体，仅 {@link HttpClient#getStream} 成功时不为空，读取完毕需关闭
+     */
+    public InputStream getBodyStream() {
+        return bodyStream;
+    }
+
     public void setBody(byte[] body) {
         this.body = body;
     }
@@ -0,0 +1,21 @@
+package com.berry.http;
+
+import com.berry.common.OssException;
+
+/**
+ * 响应处理，将响应转换为业务结果
+ *
+ * @param <T> 结果类型
+ * @author berry_cooper
+ */
+@FunctionalInterface
+public interface ResponseHandler<T> {
+    /**
+     * 处理响应
+     *
+     * @param response 响应内容
+     * @return 结果
+     * @throws OssException 响应不符合预期
+     */
+    T handle(Response response) throws OssException;
+}
@@ -0,0 +1,260 @@
+package com.berry.http;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Title RetryPolicy
+ * Description 幂等请求（GET/HEAD/PUT/DELETE）重试策略：指数退避 + 随机抖动，
+ * 支持 429/503 的 Retry-After，所有请求共享重试预算，避免故障时重试放大流量
+ * <p>可选对 GET 请求进行对冲：首个请求耗时超过近期延迟分位数时，再发出一个相同请求，取先返回者</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/16 14:40
+ */
+public final class RetryPolicy {
+
+    /**
+     * 预算以千分之一个令牌为单位
+     */
+    private static final long TOKEN = 1000;
+
+    private static final RetryPolicy NONE = new Builder().maxRetries(0).build();
+
+    private final int maxRetries;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long maxRetryAfterMillis;
+    private final long budgetCapacity;
+    private final long budgetDepositPerRequest;
+    private final double hedgePercentile;
+    private final long hedgeMinDelayMillis;
+    private final AtomicLong budget;
+
+    private RetryPolicy(Builder builder) {
+        this.maxRetries = builder.maxRetries;
+        this.baseDelayMillis = builder.baseDelayMillis;
+        this.maxDelayMillis = builder.maxDelayMillis;
+        this.maxRetryAfterMillis = builder.maxRetryAfterMillis;
+        this.budgetCapacity = (long) (builder.budgetTokens * TOKEN);
+        this.budgetDepositPerRequest = (long) (builder.budgetRatio * TOKEN);
+        this.hedgePercentile = builder.hedgePercentile;
+        this.hedgeMinDelayMillis = builder.hedgeMinDelayMillis;
+        this.budget = new AtomicLong(budgetCapacity);
+    }
+
+    /**
+     * 不重试，不对冲
+     */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public boolean isHedgingEnabled() {
+        return hedgePercentile > 0;
+    }
+
+    double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    long getHedgeMinDelayMillis() {
+        return hedgeMinDelayMillis;
+    }
+
+    /**
+     * 当前剩余重试预算（令牌数）
+     */
+    public double getRemainingBudget() {
+        return budget.get() / (double) TOKEN;
+    }
+
+    static boolean isIdempotent(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "PUT".equals(method) || "DELETE".equals(method);
+    }
+
+    static boolean isRetryableStatus(int code) {
+        return code == 408 || code == 429 || code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * 每发出一个请求，向预算存入一定比例的令牌
+     */
+    void recordRequest() {
+        if (budgetDepositPerRequest <= 0) {
+            return;
+        }
+        long current;
+        do {
+            current = budget.get();
+            if (current >= budgetCapacity) {
+                return;
+            }
+        } while (!budget.compareAndSet(current, Math.min(budgetCapacity, current + budgetDepositPerRequest)));
+    }
+
+    /**
+     * 重试或对冲前从预算中取出一个令牌
+     *
+     * @return 预算不足时 false
+     */
+    boolean tryAcquire() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    /**
+     * 计算下次重试前的等待时间
+     *
+     * @param method     请求方法
+     * @param attempt    已重试次数
+     * @param code       响应码，请求异常时为 -1
+     * @param retryAfter 响应头 Retry-After，可为空
+     * @return 等待毫秒数，不重试时为 -1
+     */
+    long retryDelayMillis(String method, int attempt, int code, String retryAfter) {
+        if (attempt >= maxRetries || !isIdempotent(method)) {
+            return -1;
+        }
+        long serverDelay = 0;
+        if (code != -1) {
+            if (!isRetryableStatus(code)) {
+                return -1;
+            }
+            serverDelay = parseRetryAfter(retryAfter);
+            if (serverDelay > maxRetryAfterMillis) {
+                return -1;
+            }
+        }
+        if (!tryAcquire()) {
+            return -1;
+        }
+        return Math.max(serverDelay, backoffMillis(attempt));
+    }
+
+    /**
+     * full jitter：[0, min(maxDelay, baseDelay * 2^attempt)] 内随机
+     */
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 30));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * 解析 Retry-After，支持秒数与 HTTP 日期两种格式
+     *
+     * @return 毫秒，无法解析时为 0
+     */
+    static long parseRetryAfter(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                Instant at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                return Math.max(0, at.toEpochMilli() - System.currentTimeMillis());
+            } catch (DateTimeParseException ignored) {
+                return 0;
+            }
+        }
+    }
+
+    public static final class Builder {
+        private int maxRetries = 3;
+        private long baseDelayMillis = 100;
+        private long maxDelayMillis = 5000;
+        private long maxRetryAfterMillis = 30000;
+        private double budgetTokens = 10;
+        private double budgetRatio = 0.1;
+        private double hedgePercentile = 0;
+        private long hedgeMinDelayMillis = 50;
+
+        private Builder() {
+        }
+
+        /**
+         * 最大重试次数，默认 3
+         */
+        public Builder maxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * 退避基础时间，默认 100ms
+         */
+        public Builder baseDelayMillis(long baseDelayMillis) {
+            this.baseDelayMillis = baseDelayMillis;
+            return this;
+        }
+
+        /**
+         * 单次退避上限，默认 5s
+         */
+        public Builder maxDelayMillis(long maxDelayMillis) {
+            this.maxDelayMillis = maxDelayMillis;
+            return this;
+        }
+
+        /**
+         * 服务端 Retry-After 超过该值时不再重试，默认 30s
+         */
+        public Builder maxRetryAfterMillis(long maxRetryAfterMillis) {
+            this.maxRetryAfterMillis = maxRetryAfterMillis;
+            return this;
+        }
+
+        /**
+         * 重试预算：最多积攒 tokens 个令牌，每个请求存入 ratio 个，每次重试或对冲消耗 1 个，
+         * 默认 10 / 0.1，即稳定状态下重试流量不超过正常流量的 10%
+         */
+        public Builder budget(double tokens, double ratio) {
+            this.budgetTokens = tokens;
+            this.budgetRatio = ratio;
+            return this;
+        }
+
+        /**
+         * 开启 GET 请求对冲，首个请求耗时超过近期延迟的该分位数（如 0.95）时发出对冲请求，默认关闭
+         *
+         * @param percentile     分位数 (0, 1)
+         * @param minDelayMillis 对冲等待下限
+         */
+        public Builder hedge(double percentile, long minDelayMillis) {
+            if (percentile < 0 || percentile >= 1) {
+                throw new IllegalArgumentException("percentile must between 0 and 1");
+            }
+            this.hedgePercentile = percentile;
+            this.hedgeMinDelayMillis = minDelayMillis;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            if (maxRetries < 0 || baseDelayMillis < 0 || maxDelayMillis < 0) {
+                throw new IllegalArgumentException("retry settings must not be negative");
+            }
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.berry.storage;
+
+import com.berry.common.OssException;
+import com.berry.storage.dto.DeleteResult;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Title BatchDeleter
+ * Description 批量删除，id 按数量与拼接长度切分为多个批次，同时进行的批次不超过 concurrency
+ * <p>一个批次结束后立即发出下一个批次，不阻塞调用线程；单个批次失败不影响其他批次，
+ * 失败原因记录在该批次的每个 id 上</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/28 10:40
+ */
+final class BatchDeleter {
+
+    /**
+     * 单批次 id 拼接后的最大字符数，避免请求体过大
+     */
+    static final int MAX_BATCH_CHARS = 64 * 1024;
+
+    /**
+     * 删除一个批次，返回服务端确认删除的 id，为空时视为全部删除
+     */
+    private final Function<List<String>, CompletableFuture<List<String>>> batchSender;
+    private final int batchSize;
+    private final int concurrency;
+
+    BatchDeleter(Function<List<String>, CompletableFuture<List<String>>> batchSender, int batchSize, int concurrency) {
+        if (batchSize <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("batchSize and concurrency must be positive");
+        }
+        this.batchSender = batchSender;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * 删除全部 id，重复与空白 id 忽略
+     *
+     * @param objectIds 对象或目录 id，不能包含英文逗号
+     * @return 全部批次结束后完成，不会异常完成
+     */
+    CompletableFuture<DeleteResult> delete(Collection<String> objectIds) {
+        List<List<String>> batches = split(objectIds);
+        if (batches.isEmpty()) {
+            return CompletableFuture.completedFuture(new DeleteResult());
+        }
+        return new Run(batches).start();
+    }
+
+    // ～ private
+    //=======================================================================================================================
+
+    private List<List<String>> split(Collection<String> objectIds) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (String id : objectIds) {
+            if (isBlank(id)) {
+                continue;
+            }
+            if (id.indexOf(',') >= 0) {
+                throw new IllegalArgumentException("object id cannot contain ',': " + id);
+            }
+            ids.add(id);
+        }
+        List<List<String>> batches = new ArrayList<>();
+        List<String> batch = new ArrayList<>();
+        int chars = 0;
+        for (String id : ids) {
+            if (!batch.isEmpty() && (batch.size() >= batchSize || chars + 1 + id.length() > MAX_BATCH_CHARS)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                chars = 0;
+            }
+            chars += batch.isEmpty() ? id.length() : id.length() + 1;
+            batch.add(id);
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * 一次批量删除，各批次结果按下标保存，全部结束后按原顺序汇总
+     */
+    private final class Run {
+        private final List<List<String>> batches;
+        private final Object[] outcomes;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<DeleteResult> result = new CompletableFuture<>();
+
+        private Run(List<List<String>> batches) {
+            this.batches = batches;
+            this.outcomes = new Object[batches.size()];
+            this.remaining = new AtomicInteger(batches.size());
+        }
+
+        private CompletableFuture<DeleteResult> start() {
+            for (int i = 0; i < Math.min(concurrency, batches.size()); i++) {
+                sendNext();
+            }
+            return result;
+        }
+
+        /**
+         * 发出下一个批次；已同步完成的批次（如参数错误）在循环中处理，避免回调递归
+         */
+        private void sendNext() {
+            while (true) {
+                int index = next.getAndIncrement();
+                if (index >= batches.size()) {
+                    return;
+                }
+                CompletableFuture<List<String>> future = Futures.call(() -> batchSender.apply(batches.get(index)));
+                if (!future.isDone()) {
+                    future.whenComplete((deleted, e) -> {
+                        finish(index, deleted, e);
+                        sendNext();
+                    });
+                    return;
+                }
+                future.whenComplete((deleted, e) -> finish(index, deleted, e));
+            }
+        }
+
+        private void finish(int index, @Nullable List<String> deleted, @Nullable Throwable e) {
+            outcomes[index] = e != null ? unwrap(e) : deleted;
+            if (remaining.decrementAndGet() == 0) {
+                result.complete(summarize());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private DeleteResult summarize() {
+            DeleteResult summary = new DeleteResult();
+            for (int i = 0; i < batches.size(); i++) {
+                Object outcome = outcomes[i];
+                if (outcome instanceof Throwable) {
+                    String msg = String.valueOf(((Throwable) outcome).getMessage());
+                    for (String id : batches.get(i)) {
+                        summary.getFailed().put(id, msg);
+                    }
+                    continue;
+                }
+                Set<String> deleted = outcome == null ? null : new HashSet<>((List<String>) outcome);
+                for (String id : batches.get(i)) {
+                    if (deleted == null || deleted.contains(id)) {
+                        summary.getDeleted().add(id);
+                    } else {
+                        summary.getNotFound().add(id);
+                    }
+                }
+            }
+            return summary;
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof OssException ? cause : new OssException(String.valueOf(cause.getMessage()));
+    }
+}
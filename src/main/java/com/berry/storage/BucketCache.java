@@ -0,0 +1,152 @@
+package com.berry.storage;
+
+import com.berry.common.OssException;
+import com.berry.storage.dto.BucketInfo;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Title BucketCache
+ * Description bucket 列表缓存，以查询名称为 key（空串为全部）
+ * <p>写入超过有效期一半后，下一次读取触发异步刷新并先返回旧值，超过有效期则重新加载；
+ * 创建、修改权限、删除 bucket 后全部失效，失效前发起的加载结果不再写入。
+ * 同一服务地址、同一密钥对、相同有效期的 BucketManage 共享缓存，加载由每次调用方传入，
+ * 缓存不持有任何 BucketManage 或其客户端</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/26 10:20
+ */
+final class BucketCache {
+
+    /**
+     * 由 BucketManage 持有，注册表只保留弱引用
+     */
+    private static final Cache<String, BucketCache> CACHES = CacheBuilder.newBuilder().weakValues().build();
+
+    private static final int MAXIMUM_SIZE = 1024;
+
+    private final long refreshNanos;
+    private final Cache<String, Entry> cache;
+    /**
+     * 进行中的加载，同一名称的并发读取与刷新共用一次请求
+     */
+    private final ConcurrentMap<String, CompletableFuture<List<BucketInfo>>> loading = new ConcurrentHashMap<>();
+    /**
+     * 失效次数，加载完成时与发起时不同则丢弃结果
+     */
+    private long generation;
+
+    private BucketCache(long ttlSeconds) {
+        this.refreshNanos = Math.max(1, TimeUnit.SECONDS.toNanos(ttlSeconds) / 2);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 获取配置与密钥对应的缓存
+     *
+     * @param config   配置
+     * @param identity 密钥标识，不同密钥可见的 bucket 不同
+     * @return 缓存，未启用时为空
+     */
+    @Nullable
+    static BucketCache get(Config config, String identity) {
+        long ttl = config.getBucketCacheTtl();
+        if (ttl <= 0) {
+            return null;
+        }
+        String key = config.getAddress() + "|" + ttl + "|" + identity;
+        return CACHES.asMap().computeIfAbsent(key, k -> new BucketCache(ttl));
+    }
+
+    /**
+     * @param name   名称，为空时查询全部
+     * @param loader 按名称异步查询 bucket 列表，未缓存或需要刷新时调用
+     * @return 列表副本
+     */
+    List<BucketInfo> get(@Nullable String name, Function<String, CompletableFuture<List<BucketInfo>>> loader) throws OssException {
+        try {
+            return getAsync(name, loader).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof OssException ? (OssException) cause : new OssException(String.valueOf(cause));
+        }
+    }
+
+    /**
+     * 异步读取，同 {@link #get(String, Function)}，不阻塞调用线程
+     */
+    CompletableFuture<List<BucketInfo>> getAsync(@Nullable String name, Function<String, CompletableFuture<List<BucketInfo>>> loader) {
+        String key = name == null ? "" : name;
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return load(key, loader).thenApply(ArrayList::new);
+        }
+        if (System.nanoTime() - entry.loadedAt > refreshNanos) {
+            // 刷新失败时保留旧值直到过期
+            load(key, loader);
+        }
+        return CompletableFuture.completedFuture(new ArrayList<>(entry.list));
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        loading.clear();
+        cache.invalidateAll();
+    }
+
+    // ～ private
+    //=======================================================================================================================
+
+    private CompletableFuture<List<BucketInfo>> load(String key, Function<String, CompletableFuture<List<BucketInfo>>> loader) {
+        CompletableFuture<List<BucketInfo>> created = new CompletableFuture<>();
+        long version;
+        synchronized (this) {
+            CompletableFuture<List<BucketInfo>> pending = loading.putIfAbsent(key, created);
+            if (pending != null) {
+                return pending;
+            }
+            version = generation;
+        }
+        Futures.call(() -> loader.apply(key)).whenComplete((list, e) -> {
+            if (e == null) {
+                put(key, list, version);
+            }
+            loading.remove(key, created);
+            if (e != null) {
+                created.completeExceptionally(e);
+            } else {
+                created.complete(list);
+            }
+        });
+        return created;
+    }
+
+    private synchronized void put(String key, List<BucketInfo> list, long version) {
+        if (version == generation) {
+            cache.put(key, new Entry(list));
+        }
+    }
+
+    private static final class Entry {
+        private final List<BucketInfo> list;
+        private final long loadedAt = System.nanoTime();
+
+        private Entry(List<BucketInfo> list) {
+            this.list = list;
+        }
+    }
+}
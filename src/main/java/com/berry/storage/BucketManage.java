@@ -1,26 +1,25 @@
 package com.berry.storage;
 
-
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
 import com.berry.common.Constants;
 import com.berry.common.OssException;
 import com.berry.http.HttpClient;
 import com.berry.http.Response;
+import com.berry.http.ResponseHandler;
 import com.berry.storage.dto.BucketInfo;
 import com.berry.storage.dto.Result;
 import com.berry.storage.url.UrlFactory;
 import com.berry.util.Auth;
 import com.berry.util.Json;
 import com.berry.util.StringMap;
+import com.berry.util.StringUtils;
 import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
-import java.util.ArrayList;
+import java.lang.reflect.Type;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.apache.commons.lang3.StringUtils.*;
 
@@ -36,46 +35,63 @@ public final class BucketManage {
 
     private static final Logger logger = LoggerFactory.getLogger(BucketManage.class);
 
+    private static final Type BUCKET_LIST_RESULT = Json.type(Result.class, Json.type(List.class, BucketInfo.class));
+
     private final Auth auth;
     private final Config config;
     private final HttpClient client;
+    @Nullable
+    private final ObjectMetadataCache objectMetadataCache;
+    @Nullable
+    private final BucketCache bucketCache;
 
     public BucketManage(Auth auth, Config config) {
         this.auth = auth;
         this.config = config;
-        this.client = new HttpClient(config.getUploadTimeout());
+        this.client = ClientRegistry.get(config);
+        this.objectMetadataCache = ObjectMetadataCache.get(config);
+        this.bucketCache = BucketCache.get(config, auth.getSign(config.getAddress()));
     }
 
     /**
      * 获取 bucket 列表，
+     * <p>启用缓存（{@link Config#setBucketCacheTtl(long)}）时优先读取缓存</p>
      *
      * @param bucketName bucketName 可空
      * @return 列表
      */
     public List<BucketInfo> queryBucket(@Nullable String bucketName) throws OssException {
+        if (bucketCache != null) {
+            return bucketCache.get(bucketName, this::fetchBucketsAsync);
+        }
         String url = String.format("%s%s", config.getAddress(), UrlFactory.BucketUr.list.getUrl());
-        StringMap params = new StringMap();
-        params.putNotNull("name", bucketName);
-        Response response = get(url, params.size() > 1 ? params : null);
-        if (response.isSuccessful()) {
-            Result result = response.jsonToObject(Result.class);
-            if (result == null || !result.getCode().equals(Constants.API_SUCCESS_CODE) || !result.getMsg().equals(Constants.API_SUCCESS_MSG)) {
-                String msg = result == null ? "empty result" : result.getMsg();
-                logger.error(msg);
-                return Lists.newArrayList();
-            }
-            List<BucketInfo> vos = new ArrayList<>();
-            JSONArray array = JSON.parseArray(JSON.toJSONString(result.getData()));
-            BucketInfo vo;
-            for (int i = 0; i < array.size(); i++) {
-                JSONObject o = array.getJSONObject(i);
-                vo = Json.decode(JSON.toJSONString(o), BucketInfo.class);
-                vos.add(vo);
+        return toBucketList(get(url, listParams(bucketName)));
+    }
+
+    /**
+     * 异步获取 bucket 列表，同 {@link #queryBucket(String)}
+     */
+    public CompletableFuture<List<BucketInfo>> queryBucketAsync(@Nullable String bucketName) {
+        if (bucketCache == null) {
+            return fetchBucketsAsync(bucketName);
+        }
+        return bucketCache.getAsync(bucketName, this::fetchBucketsAsync);
+    }
+
+    /**
+     * 按名称获取 bucket 信息，用于查询区域、权限
+     *
+     * @param bucketName bucket name
+     * @return bucket 信息，不存在时为空
+     */
+    @Nullable
+    public BucketInfo getBucket(String bucketName) throws OssException {
+        for (BucketInfo info : queryBucket(bucketName)) {
+            if (bucketName.equals(info.getName())) {
+                return info;
             }
-            return vos;
         }
-        logger.error("request fail,stateCode:{}, msg:{}", response.getCode(), response.getMessage());
-        throw new OssException(response.getMessage());
+        return null;
     }
 
     /**
@@ -87,6 +103,102 @@ public final class BucketManage {
      * @return true or false
      */
     public Boolean createBucket(String name, String region, @Nullable String acl) throws OssException {
+        String url = String.format("%s%s", config.getAddress(), UrlFactory.BucketUr.new_create_bucket.getUrl());
+        StringMap params = createParams(name, region, acl);
+        bucketChanged(name);
+        try {
+            return toBoolean(post(url, params));
+        } finally {
+            bucketChanged(name);
+        }
+    }
+
+    /**
+     * 异步创建 bucket，同 {@link #createBucket(String, String, String)}
+     */
+    public CompletableFuture<Boolean> createBucketAsync(String name, String region, @Nullable String acl) {
+        return Futures.call(() -> {
+            String url = String.format("%s%s", config.getAddress(), UrlFactory.BucketUr.new_create_bucket.getUrl());
+            StringMap params = createParams(name, region, acl);
+            bucketChanged(name);
+            return getResultAsync(url, params, this::toBoolean).whenComplete((result, e) -> bucketChanged(name));
+        });
+    }
+
+    /**
+     * 更新 bucket acl
+     *
+     * @param bucket bucket name
+     * @param acl    acl
+     * @return true or false
+     */
+    public Boolean updateAcl(String bucket, String acl) throws OssException {
+        String url = String.format("%s%s", config.getAddress(), UrlFactory.BucketUr.set_acl.getUrl());
+        StringMap params = aclParams(bucket, acl);
+        bucketChanged(bucket);
+        try {
+            return toBoolean(post(url, params));
+        } finally {
+            bucketChanged(bucket);
+        }
+    }
+
+    /**
+     * 异步更新 bucket acl，同 {@link #updateAcl(String, String)}
+     */
+    public CompletableFuture<Boolean> updateAclAsync(String bucket, String acl) {
+        return Futures.call(() -> {
+            String url = String.format("%s%s", config.getAddress(), UrlFactory.BucketUr.set_acl.getUrl());
+            StringMap params = aclParams(bucket, acl);
+            bucketChanged(bucket);
+            return getResultAsync(url, params, this::toBoolean).whenComplete((result, e) -> bucketChanged(bucket));
+        });
+    }
+
+    /**
+     * 删除 bucket
+     *
+     * @param bucket bucket name
+     * @return true or false
+     */
+    public Boolean delete(String bucket) throws OssException {
+        String url = String.format("%s%s", config.getAddress(), UrlFactory.BucketUr.delete_bucket.getUrl());
+        StringMap params = deleteParams(bucket);
+        bucketChanged(bucket);
+        try {
+            return toBoolean(post(url, params));
+        } finally {
+            bucketChanged(bucket);
+        }
+    }
+
+    /**
+     * 异步删除 bucket，同 {@link #delete(String)}
+     */
+    public CompletableFuture<Boolean> deleteAsync(String bucket) {
+        return Futures.call(() -> {
+            String url = String.format("%s%s", config.getAddress(), UrlFactory.BucketUr.delete_bucket.getUrl());
+            StringMap params = deleteParams(bucket);
+            bucketChanged(bucket);
+            return getResultAsync(url, params, this::toBoolean).whenComplete((result, e) -> bucketChanged(bucket));
+        });
+    }
+
+    private List<BucketInfo> toBucketList(Response response) throws OssException {
+        if (response.isSuccessful()) {
+            Result<List<BucketInfo>> result = response.jsonToObject(BUCKET_LIST_RESULT);
+            if (result == null || !result.getCode().equals(Constants.API_SUCCESS_CODE) || !result.getMsg().equals(Constants.API_SUCCESS_MSG)) {
+                String msg = result == null ? "empty result" : result.getMsg();
+                logger.error(msg);
+                return Lists.newArrayList();
+            }
+            return result.getData() == null ? Lists.newArrayList() : result.getData();
+        }
+        logger.error("request fail,stateCode:{}, msg:{}", response.getCode(), response.getMessage());
+        throw new OssException(response.getMessage());
+    }
+
+    private static StringMap createParams(String name, String region, @Nullable String acl) {
         if (isAnyBlank(name, region)) {
             throw new IllegalArgumentException("name and region cannot be blank!");
         }
@@ -103,54 +215,67 @@ public final class BucketManage {
             }
             params.put("acl", acl);
         }
-        String url = String.format("%s%s", config.getAddress(), UrlFactory.BucketUr.new_create_bucket.getUrl());
-        return getResult(url, params);
+        return params;
     }
 
-    /**
-     * 更新 bucket acl
-     *
-     * @param bucket bucket name
-     * @param acl    acl
-     * @return true or false
-     */
-    public Boolean updateAcl(String bucket, String acl) throws OssException {
+    private static StringMap aclParams(String bucket, String acl) {
         if (isAnyBlank(bucket, acl)) {
             throw new IllegalArgumentException("bucket and acl cannot be blank!");
         }
-        String url = String.format("%s%s", config.getAddress(), UrlFactory.BucketUr.set_acl.getUrl());
         StringMap params = new StringMap();
         params.put("bucket", bucket);
         params.put("acl", acl);
-        return getResult(url, params);
+        return params;
     }
 
-    /**
-     * 删除 bucket
-     *
-     * @param bucket bucket name
-     * @return true or false
-     */
-    public Boolean delete(String bucket) throws OssException {
+    private static StringMap deleteParams(String bucket) {
         if (isBlank(bucket)) {
             throw new IllegalArgumentException("bucket cannot be blank!");
         }
-        String url = String.format("%s%s", config.getAddress(), UrlFactory.BucketUr.delete_bucket.getUrl());
         StringMap params = new StringMap();
         params.put("bucket", bucket);
-        return getResult(url, params);
+        return params;
+    }
+
+    private CompletableFuture<Boolean> getResultAsync(String url, StringMap params, ResponseHandler<Boolean> handler) {
+        StringMap header = auth.authorization(url);
+        return client.postJsonAsync(url, params, header, handler);
     }
 
     /**
-     * 获取 boolean 响应
-     *
-     * @param url    url
-     * @param params 参数
-     * @return true or false
+     * bucket 创建、权限变更或删除的请求发送前与结束后（包括请求失败、超时），失效 bucket 列表缓存与其下对象的元数据缓存
      */
-    private Boolean getResult(String url, StringMap params) throws OssException {
-        Response response = post(url, params);
-        Result result = response.jsonToObject(Result.class);
+    private void bucketChanged(String bucket) {
+        if (bucketCache != null) {
+            bucketCache.invalidateAll();
+        }
+        if (objectMetadataCache != null) {
+            objectMetadataCache.invalidateBucket(bucket);
+        }
+    }
+
+    private CompletableFuture<List<BucketInfo>> fetchBucketsAsync(@Nullable String bucketName) {
+        String url = String.format("%s%s", config.getAddress(), UrlFactory.BucketUr.list.getUrl());
+        StringMap params = listParams(bucketName);
+        StringMap header = auth.authorization(url);
+        String query = params != null ? "?" + StringUtils.parseUrlParams(params) : "";
+        return client.getAsync(url + query, header, this::toBucketList);
+    }
+
+    @Nullable
+    private static StringMap listParams(@Nullable String bucketName) {
+        if (isBlank(bucketName)) {
+            return null;
+        }
+        return new StringMap().put("name", bucketName);
+    }
+
+    private Boolean toBoolean(Response response) throws OssException {
+        Result<?> result = response.jsonToObject(Result.class);
+        if (result == null) {
+            logger.error("request fail,stateCode:{}, msg:{}", response.getCode(), response.getMessage());
+            throw new OssException(response.getError() != null ? response.getError() : response.getMessage());
+        }
         if (result.getCode().equals(Constants.API_SUCCESS_CODE) && result.getMsg().equals(Constants.API_SUCCESS_MSG)) {
             return true;
         }
@@ -165,6 +290,6 @@ public final class BucketManage {
 
     private Response post(String url, StringMap params) throws OssException {
         StringMap header = auth.authorization(url);
-        return client.post(url, params.jsonString(), header);
+        return client.postJson(url, params, header);
     }
 }
@@ -0,0 +1,81 @@
+package com.berry.storage;
+
+import com.berry.http.HttpClient;
+import com.berry.http.HttpClientOptions;
+import com.berry.http.HttpProtocol;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Objects;
+
+/**
+ * Title ClientRegistry
+ * Description 按服务地址与传输配置缓存 HttpClient，传输配置相同的 xxManage 复用同一个客户端，
+ * 所有客户端共享底层连接池
+ * <p>分片大小、缓存等不影响请求发送的配置不参与区分；客户端只被 xxManage 引用，全部回收后从注册表中移除</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/6 10:12
+ */
+final class ClientRegistry {
+
+    private static final Cache<Key, HttpClient> CLIENTS = CacheBuilder.newBuilder().weakValues().build();
+
+    private ClientRegistry() {
+    }
+
+    /**
+     * 获取配置对应的客户端，不存在时创建
+     * <p>以创建时的配置取值作为 key，之后再修改 config 不会影响已注册的客户端</p>
+     *
+     * @param config 配置
+     * @return 客户端
+     * @throws IllegalArgumentException https 地址使用 H2C 协议
+     */
+    static HttpClient get(Config config) {
+        if (config.getProtocol() == HttpProtocol.H2C && config.isUseHttpsDomains()) {
+            throw new IllegalArgumentException("H2C is plaintext only, use HTTP_2 for https address");
+        }
+        HttpClientOptions options = HttpClientOptions.builder()
+                .timeout(config.getUploadTimeout())
+                .retryPolicy(config.getRetryPolicy())
+                .metrics(config.getMetrics())
+                .virtualThreads(config.isVirtualThreads())
+                .adaptiveConcurrency(config.isAdaptiveConcurrency())
+                .protocol(config.getProtocol())
+                .compressionThreshold(config.getRequestCompressionThreshold())
+                .build();
+        return CLIENTS.asMap().computeIfAbsent(new Key(config.getAddress(), options), key -> new HttpClient(key.options));
+    }
+
+    /**
+     * 服务地址（含 http/https）与传输配置
+     */
+    private static final class Key {
+        private final String address;
+        private final HttpClientOptions options;
+
+        private Key(String address, HttpClientOptions options) {
+            this.address = address;
+            this.options = options;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return address.equals(key.address) && options.equals(key.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(address, options);
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package com.berry.storage;
 
+import com.berry.http.HttpMetrics;
+import com.berry.http.HttpProtocol;
+import com.berry.http.RetryPolicy;
+
+import java.nio.file.Path;
+
 /**
  * Title Config
  * Description
@@ -26,6 +32,97 @@ public final class Config {
      */
     private boolean useHttpsDomains = false;
 
+    /**
+     * 分片下载 每个分片字节数, 默认 8M
+     */
+    private long downloadPartSize = 8 * 1024 * 1024;
+
+    /**
+     * 分片下载 同时进行的分片数, 默认 4
+     */
+    private int downloadConcurrency = 4;
+
+    /**
+     * 分片上传 每个分片字节数, 默认 8M
+     */
+    private int uploadPartSize = 8 * 1024 * 1024;
+
+    /**
+     * 分片上传 同时进行的分片数、目录上传 同时进行的文件数, 默认 4
+     */
+    private int uploadConcurrency = 4;
+
+    /**
+     * 批量删除 每个请求的 id 数, 默认 1000
+     */
+    private int deleteBatchSize = 1000;
+
+    /**
+     * 批量删除 同时进行的请求数, 默认 4
+     */
+    private int deleteConcurrency = 4;
+
+    /**
+     * 请求重试策略, 默认不重试
+     */
+    private RetryPolicy retryPolicy = RetryPolicy.none();
+
+    /**
+     * 请求耗时统计, 默认不统计
+     */
+    private HttpMetrics metrics;
+
+    /**
+     * 对象元数据缓存最大条数, 默认 0 即不缓存
+     */
+    private long metadataCacheSize = 0;
+
+    /**
+     * 对象元数据缓存有效期 单位秒, 默认 60s
+     */
+    private long metadataCacheTtl = 60;
+
+    /**
+     * bucket 列表缓存有效期 单位秒, 默认 0 即不缓存；超过一半有效期后读取时异步刷新
+     */
+    private long bucketCacheTtl = 0;
+
+    /**
+     * 对象本地磁盘缓存目录, 默认为空即不缓存；仅作用于同步读取对象的方法
+     */
+    private Path objectCacheDir;
+
+    /**
+     * 对象本地磁盘缓存总大小上限 单位字节, 默认 1G
+     */
+    private long objectCacheSize = 1024 * 1024 * 1024L;
+
+    /**
+     * 对象临时访问链接缓存最大条数, 默认 0 即不缓存
+     */
+    private long tempUrlCacheSize = 0;
+
+    /**
+     * 异步请求与回调是否在虚拟线程中执行, 默认 否；需要 JDK 21 及以上，低版本忽略。
+     * 启用后异步请求并发上限为 1024、单 host 256；同步请求在调用线程执行，不受影响
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * 是否按服务端耗时与错误率自适应调整单个服务地址的并发请求数, 默认 否，即固定为 16
+     */
+    private boolean adaptiveConcurrency = false;
+
+    /**
+     * http 协议, 默认 HTTP_2，即 https 时协商 HTTP/2，否则 HTTP/1.1；H2C 仅可用于 http 地址
+     */
+    private HttpProtocol protocol = HttpProtocol.HTTP_2;
+
+    /**
+     * JSON、文本请求体（如 base64 上传）以 gzip 压缩的最小大小 单位字节, 默认 0，即不压缩；需服务端支持 Content-Encoding: gzip 请求
+     */
+    private long requestCompressionThreshold = 0;
+
     public Config(String host) {
         this.host = host;
     }
@@ -60,6 +157,150 @@ public final class Config {
         this.useHttpsDomains = useHttpsDomains;
     }
 
+    public long getDownloadPartSize() {
+        return downloadPartSize;
+    }
+
+    public void setDownloadPartSize(long downloadPartSize) {
+        this.downloadPartSize = downloadPartSize;
+    }
+
+    public int getDownloadConcurrency() {
+        return downloadConcurrency;
+    }
+
+    public void setDownloadConcurrency(int downloadConcurrency) {
+        this.downloadConcurrency = downloadConcurrency;
+    }
+
+    public int getUploadPartSize() {
+        return uploadPartSize;
+    }
+
+    public void setUploadPartSize(int uploadPartSize) {
+        this.uploadPartSize = uploadPartSize;
+    }
+
+    public int getUploadConcurrency() {
+        return uploadConcurrency;
+    }
+
+    public void setUploadConcurrency(int uploadConcurrency) {
+        this.uploadConcurrency = uploadConcurrency;
+    }
+
+    public int getDeleteBatchSize() {
+        return deleteBatchSize;
+    }
+
+    public void setDeleteBatchSize(int deleteBatchSize) {
+        this.deleteBatchSize = deleteBatchSize;
+    }
+
+    public int getDeleteConcurrency() {
+        return deleteConcurrency;
+    }
+
+    public void setDeleteConcurrency(int deleteConcurrency) {
+        this.deleteConcurrency = deleteConcurrency;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy == null ? RetryPolicy.none() : retryPolicy;
+    }
+
+    public HttpMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(HttpMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public long getMetadataCacheSize() {
+        return metadataCacheSize;
+    }
+
+    public void setMetadataCacheSize(long metadataCacheSize) {
+        this.metadataCacheSize = metadataCacheSize;
+    }
+
+    public long getMetadataCacheTtl() {
+        return metadataCacheTtl;
+    }
+
+    public void setMetadataCacheTtl(long metadataCacheTtl) {
+        this.metadataCacheTtl = metadataCacheTtl;
+    }
+
+    public long getBucketCacheTtl() {
+        return bucketCacheTtl;
+    }
+
+    public void setBucketCacheTtl(long bucketCacheTtl) {
+        this.bucketCacheTtl = bucketCacheTtl;
+    }
+
+    public Path getObjectCacheDir() {
+        return objectCacheDir;
+    }
+
+    public void setObjectCacheDir(Path objectCacheDir) {
+        this.objectCacheDir = objectCacheDir;
+    }
+
+    public long getObjectCacheSize() {
+        return objectCacheSize;
+    }
+
+    public void setObjectCacheSize(long objectCacheSize) {
+        this.objectCacheSize = objectCacheSize;
+    }
+
+    public long getTempUrlCacheSize() {
+        return tempUrlCacheSize;
+    }
+
+    public void setTempUrlCacheSize(long tempUrlCacheSize) {
+        this.tempUrlCacheSize = tempUrlCacheSize;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public boolean isAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    public void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+    }
+
+    public HttpProtocol getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(HttpProtocol protocol) {
+        this.protocol = protocol == null ? HttpProtocol.HTTP_2 : protocol;
+    }
+
+    public long getRequestCompressionThreshold() {
+        return requestCompressionThreshold;
+    }
+
+    public void setRequestCompressionThreshold(long requestCompressionThreshold) {
+        this.requestCompressionThreshold = requestCompressionThreshold;
+    }
+
     public String getAddress() {
         String scheme = "http://";
         if (useHttpsDomains) {
@@ -0,0 +1,141 @@
+package com.berry.storage;
+
+import com.berry.common.OssException;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Title DemandSubscription
+ * Description 按订阅方请求数发送数据的订阅，request、cancel 与异步结果都只登记状态，由 {@link #drain()} 串行处理
+ * <p>同一时刻只有一个线程执行 drain，onNext 中再次 request 不会递归；发送前先扣减请求数，
+ * 请求数为 0 时不读取数据源，未消费的数据不会在内存中累积</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/10/10 10:20
+ */
+abstract class DemandSubscription<T> implements Subscription {
+
+    private final Subscriber<? super T> subscriber;
+    private final Executor executor;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+    /**
+     * 已发出 onComplete、onError 或已取消，仅在 drain 线程读写
+     */
+    private boolean terminated;
+
+    /**
+     * @param subscriber 订阅方
+     * @param executor   执行 drain 的线程池，drain 中有阻塞读取时不能在调用方线程执行
+     */
+    DemandSubscription(Subscriber<? super T> subscriber, Executor executor) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            invalidRequest = new IllegalArgumentException("request must be positive, rule 3.9: " + n);
+        } else {
+            requested.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+        }
+        schedule();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        schedule();
+    }
+
+    /**
+     * 处理当前状态：发送数据、发起异步读取或结束订阅
+     */
+    abstract void drain();
+
+    /**
+     * 释放数据源，结束后每次 drain 都会调用，需可重复调用
+     */
+    abstract void release();
+
+    // ～ package
+    //=======================================================================================================================
+
+    /**
+     * 登记状态变化后调用，触发 drain
+     */
+    final void schedule() {
+        if (wip.getAndIncrement() == 0) {
+            executor.execute(this::runDrain);
+        }
+    }
+
+    final long requested() {
+        return requested.get();
+    }
+
+    /**
+     * 发送一项，订阅方抛出异常时视为取消
+     *
+     * @return 是否可以继续发送
+     */
+    final boolean emit(T item) {
+        requested.decrementAndGet();
+        try {
+            subscriber.onNext(item);
+        } catch (Throwable e) {
+            cancel();
+            return false;
+        }
+        return !cancelled;
+    }
+
+    final void complete() {
+        terminated = true;
+        release();
+        subscriber.onComplete();
+    }
+
+    final void error(Throwable e) {
+        terminated = true;
+        release();
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        subscriber.onError(cause instanceof OssException || cause instanceof IllegalArgumentException
+                ? cause : new OssException(String.valueOf(cause.getMessage())));
+    }
+
+    // ～ private
+    //=======================================================================================================================
+
+    private void runDrain() {
+        int missed = 1;
+        do {
+            if (terminated) {
+                release();
+            } else if (cancelled) {
+                terminated = true;
+                release();
+            } else if (invalidRequest != null) {
+                error(invalidRequest);
+            } else {
+                try {
+                    drain();
+                } catch (RuntimeException e) {
+                    if (!terminated) {
+                        error(e);
+                    }
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
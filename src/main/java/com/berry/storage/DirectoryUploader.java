@@ -0,0 +1,232 @@
+package com.berry.storage;
+
+import com.berry.storage.dto.DirectoryUploadResult;
+import com.berry.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Title DirectoryUploader
+ * Description 目录上传，遍历本地目录树，边遍历边上传，同时进行的文件上传不超过 concurrency
+ * <p>每个远程目录只创建一次：创建子目录时其各级父目录视为已创建，文件在所在目录创建结束后上传；
+ * 目录创建失败（如名称不符合规则）时仍上传其中的文件，由服务端按路径放置。不跟随符号链接</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/29 10:30
+ */
+final class DirectoryUploader {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryUploader.class);
+
+    private final ObjectManage objectManage;
+    private final int concurrency;
+
+    DirectoryUploader(ObjectManage objectManage, int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+        this.objectManage = objectManage;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * @param bucket       bucket name
+     * @param acl          对象acl
+     * @param root         本地目录
+     * @param remotePrefix 远程目录，可空
+     * @return 上传结果
+     */
+    DirectoryUploadResult upload(String bucket, String acl, Path root, @Nullable String remotePrefix) throws IOException {
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException("not a directory: " + root);
+        }
+        Run run = new Run(bucket, acl, root, remotePrefix == null ? "" : StringUtils.trimSlash(remotePrefix));
+        long start = System.nanoTime();
+        try {
+            Files.walkFileTree(root, run);
+        } finally {
+            run.await();
+        }
+        return run.result((System.nanoTime() - start) / 1_000_000);
+    }
+
+    // ～ private
+    //=======================================================================================================================
+
+    /**
+     * 一次目录上传
+     */
+    private final class Run extends SimpleFileVisitor<Path> {
+        private final String bucket;
+        private final String acl;
+        private final Path root;
+        private final String prefix;
+        private final Semaphore permits = new Semaphore(concurrency);
+        /**
+         * 远程目录 -> 创建结果，父目录与子目录共用同一结果
+         */
+        private final ConcurrentMap<String, CompletableFuture<Void>> folders = new ConcurrentHashMap<>();
+        /**
+         * 正在遍历的目录是否为空，栈顶为当前目录
+         */
+        private final Deque<boolean[]> empty = new ArrayDeque<>();
+        private final AtomicInteger uploadedFiles = new AtomicInteger();
+        private final LongAdder uploadedBytes = new LongAdder();
+        private final AtomicInteger createdFolders = new AtomicInteger();
+        private final ConcurrentMap<String, String> failed = new ConcurrentHashMap<>();
+
+        private Run(String bucket, String acl, Path root, String prefix) {
+            this.bucket = bucket;
+            this.acl = acl;
+            this.root = root;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            markNotEmpty();
+            empty.push(new boolean[]{true});
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, @Nullable IOException e) {
+            if (e != null) {
+                failed.put(relative(dir) + "/", String.valueOf(e.getMessage()));
+            }
+            // 空目录单独创建，非空目录随其中的文件或子目录创建
+            if (empty.pop()[0]) {
+                String folder = remoteDir(dir);
+                if (!folder.isEmpty()) {
+                    folder(folder);
+                }
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            markNotEmpty();
+            if (!attrs.isRegularFile()) {
+                return FileVisitResult.CONTINUE;
+            }
+            String folder = remoteDir(file.getParent());
+            CompletableFuture<Void> created = folder.isEmpty() ? CompletableFuture.completedFuture(null) : folder(folder);
+            String name = relative(file);
+            long size = attrs.size();
+            permits.acquireUninterruptibly();
+            created.thenCompose(v -> objectManage.uploadAsync(bucket, acl, folder.isEmpty() ? null : folder, file.toFile()))
+                    .whenComplete((uploaded, e) -> {
+                        if (e != null) {
+                            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                            logger.error("upload file fail, file:{}, msg:{}", name, cause.getMessage());
+                            failed.put(name, String.valueOf(cause.getMessage()));
+                        } else {
+                            uploadedFiles.incrementAndGet();
+                            uploadedBytes.add(size);
+                        }
+                        permits.release();
+                    });
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+            markNotEmpty();
+            failed.put(relative(file), String.valueOf(e.getMessage()));
+            return FileVisitResult.CONTINUE;
+        }
+
+        /**
+         * 创建远程目录，已创建或正在创建时复用其结果；失败只记录，不影响目录中文件的上传
+         */
+        private CompletableFuture<Void> folder(String folder) {
+            CompletableFuture<Void> existing = folders.get(folder);
+            if (existing != null) {
+                return existing;
+            }
+            CompletableFuture<Void> created = new CompletableFuture<>();
+            existing = folders.putIfAbsent(folder, created);
+            if (existing != null) {
+                return existing;
+            }
+            for (int i = folder.lastIndexOf('/'); i > 0; i = folder.lastIndexOf('/', i - 1)) {
+                folders.putIfAbsent(folder.substring(0, i), created);
+            }
+            objectManage.createFolderAsync(bucket, folder).whenComplete((success, e) -> {
+                if (e != null) {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    failed.put(folder + "/", String.valueOf(cause.getMessage()));
+                } else {
+                    createdFolders.incrementAndGet();
+                }
+                created.complete(null);
+            });
+            return created;
+        }
+
+        private void markNotEmpty() {
+            boolean[] current = empty.peek();
+            if (current != null) {
+                current[0] = false;
+            }
+        }
+
+        private String relative(Path path) {
+            StringBuilder builder = new StringBuilder();
+            for (Path name : root.relativize(path)) {
+                if (builder.length() > 0) {
+                    builder.append('/');
+                }
+                builder.append(name.toString());
+            }
+            return builder.toString();
+        }
+
+        private String remoteDir(Path dir) {
+            String relative = relative(dir);
+            if (prefix.isEmpty()) {
+                return relative;
+            }
+            return relative.isEmpty() ? prefix : prefix + "/" + relative;
+        }
+
+        /**
+         * 等待全部上传与目录创建结束
+         */
+        private void await() {
+            permits.acquireUninterruptibly(concurrency);
+            permits.release(concurrency);
+            CompletableFuture.allOf(folders.values().toArray(new CompletableFuture<?>[0])).join();
+        }
+
+        private DirectoryUploadResult result(long elapsedMillis) {
+            DirectoryUploadResult result = new DirectoryUploadResult();
+            result.setUploadedFiles(uploadedFiles.get());
+            result.setUploadedBytes(uploadedBytes.sum());
+            result.setCreatedFolders(createdFolders.get());
+            result.setElapsedMillis(elapsedMillis);
+            result.getFailed().putAll(new TreeMap<>(failed));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.berry.storage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Title Futures
+ * Description 异步方法的公共处理：参数校验等同步抛出的异常统一转为异常完成的 future，调用方只需处理一种失败方式
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/10/17 10:20
+ */
+final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * 发起异步调用，同步抛出的运行时异常转为异常完成的 future
+     *
+     * @param call 异步调用
+     * @return 调用返回的 future，或异常完成的 future
+     */
+    static <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+    }
+
+    /**
+     * @param e 异常
+     * @return 以 e 异常完成的 future
+     */
+    static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+}
@@ -0,0 +1,229 @@
+package com.berry.storage;
+
+import com.berry.common.Constants;
+import com.berry.common.OssException;
+import com.berry.http.HttpClient;
+import com.berry.http.Response;
+import com.berry.storage.dto.MultipartUpload;
+import com.berry.storage.dto.ObjectInfo;
+import com.berry.storage.dto.Result;
+import com.berry.storage.url.UrlFactory;
+import com.berry.util.Auth;
+import com.berry.util.Json;
+import com.berry.util.StringMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Title MultipartUploader
+ * Description 分片并发上传，文件切分为固定大小的分片同时上传，全部成功后合并
+ * <p>注意：init_multipart_upload、upload_part、complete_multipart_upload、abort_multipart_upload
+ * 四个接口由本 SDK 定义，仅在测试用模拟服务中实现与验证，服务端未提供时调用失败</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/10 11:32
+ */
+final class MultipartUploader {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultipartUploader.class);
+
+    private static final Type INIT_RESULT = Json.type(Result.class, MultipartUpload.class);
+
+    private static final Type COMPLETE_RESULT = Json.type(Result.class, ObjectInfo.class);
+
+    private final HttpClient client;
+    private final Auth auth;
+    private final String address;
+    private final int partSize;
+    private final int concurrency;
+
+    MultipartUploader(HttpClient client, Auth auth, String address, int partSize, int concurrency) {
+        if (partSize <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("partSize and concurrency must be positive");
+        }
+        this.client = client;
+        this.auth = auth;
+        this.address = address;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * 分片上传文件
+     * <p>合并成功之前任何失败（包括运行时异常）都会取消本次上传，已上传分片由服务端清除</p>
+     *
+     * @param bucket   bucket name
+     * @param acl      对象acl
+     * @param filePath 对象存储路径
+     * @param file     文件
+     * @return 对象信息
+     */
+    ObjectInfo upload(String bucket, String acl, @Nullable String filePath, File file) throws OssException {
+        long size = file.length();
+        int partCount = (int) Math.max(1, (size + partSize - 1) / partSize);
+        String uploadId = init(bucket, acl, filePath, file.getName(), size, partCount);
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            String[] etags = uploadParts(uploadId, channel, size, partCount);
+            ObjectInfo info = complete(bucket, uploadId, etags);
+            completed = true;
+            return info;
+        } catch (IOException e) {
+            throw e instanceof OssException ? (OssException) e : new OssException(e.getMessage());
+        } finally {
+            if (!completed) {
+                abort(bucket, uploadId);
+            }
+        }
+    }
+
+    private String init(String bucket, String acl, @Nullable String filePath, String fileName, long size, int partCount) throws OssException {
+        StringMap params = new StringMap();
+        params.put("bucket", bucket);
+        params.put("acl", acl);
+        if (isNotBlank(filePath)) {
+            params.put("filePath", filePath);
+        }
+        params.put("fileName", fileName);
+        params.put("size", size);
+        params.put("partCount", partCount);
+        Result<MultipartUpload> result = post(UrlFactory.ObjectUrl.init_multipart_upload, params, INIT_RESULT);
+        if (result.getData() == null) {
+            throw new OssException("empty upload id");
+        }
+        return result.getData().getUploadId();
+    }
+
+    /**
+     * 并发上传全部分片，同时进行的分片数不超过 concurrency，分片缓冲区循环复用
+     *
+     * @return 各分片 etag，下标为 partNumber - 1
+     */
+    private String[] uploadParts(String uploadId, FileChannel channel, long size, int partCount) throws IOException {
+        String[] etags = new String[partCount];
+        Semaphore permits = new Semaphore(concurrency);
+        BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(concurrency);
+        AtomicReference<String> error = new AtomicReference<>();
+        int bufferSize = (int) Math.min(partSize, size);
+        for (int i = 0; i < partCount && error.get() == null; i++) {
+            permits.acquireUninterruptibly();
+            byte[] buffer = buffers.poll();
+            if (buffer == null) {
+                buffer = new byte[bufferSize];
+            }
+            long position = (long) i * partSize;
+            int length = (int) Math.min(partSize, size - position);
+            try {
+                read(channel, buffer, position, length);
+            } catch (IOException e) {
+                permits.release();
+                error.compareAndSet(null, e.getMessage());
+                break;
+            }
+            final int partNumber = i + 1;
+            final byte[] partData = buffer;
+            String url = String.format("%s%s?uploadId=%s&partNumber=%d", address, UrlFactory.ObjectUrl.upload_part.getUrl(), uploadId, partNumber);
+            StringMap header = auth.authorization(url);
+            client.asyncPost(url, partData, 0, length, header, Constants.DEFAULT_MIME, response -> {
+                try {
+                    Result<Object> result = checkResult(response, Result.class);
+                    if (result.getData() == null) {
+                        throw new OssException("part etag missing");
+                    }
+                    etags[partNumber - 1] = result.getData().toString();
+                } catch (OssException | RuntimeException e) {
+                    logger.error("upload part fail, uploadId:{}, partNumber:{}, msg:{}", uploadId, partNumber, e.getMessage());
+                    error.compareAndSet(null, String.valueOf(e.getMessage()));
+                } finally {
+                    buffers.offer(partData);
+                    permits.release();
+                }
+            });
+        }
+        // 取回全部许可，即所有分片均已结束
+        permits.acquireUninterruptibly(concurrency);
+        if (error.get() != null) {
+            throw new OssException(error.get());
+        }
+        return etags;
+    }
+
+    private ObjectInfo complete(String bucket, String uploadId, String[] etags) throws OssException {
+        List<Map<String, Object>> parts = new ArrayList<>(etags.length);
+        for (int i = 0; i < etags.length; i++) {
+            Map<String, Object> part = new HashMap<>(4);
+            part.put("partNumber", i + 1);
+            part.put("etag", etags[i]);
+            parts.add(part);
+        }
+        StringMap params = new StringMap();
+        params.put("bucket", bucket);
+        params.put("uploadId", uploadId);
+        params.put("parts", parts);
+        Result<ObjectInfo> result = post(UrlFactory.ObjectUrl.complete_multipart_upload, params, COMPLETE_RESULT);
+        return result.getData();
+    }
+
+    private void abort(String bucket, String uploadId) {
+        StringMap params = new StringMap();
+        params.put("bucket", bucket);
+        params.put("uploadId", uploadId);
+        try {
+            post(UrlFactory.ObjectUrl.abort_multipart_upload, params, Result.class);
+        } catch (OssException | RuntimeException e) {
+            // 不覆盖导致取消的原始异常
+            logger.warn("abort multipart upload fail, uploadId:{}, msg:{}", uploadId, e.getMessage());
+        }
+    }
+
+    private <T> Result<T> post(UrlFactory.ObjectUrl api, StringMap params, Type type) throws OssException {
+        String url = String.format("%s%s", address, api.getUrl());
+        StringMap header = auth.authorization(url);
+        return checkResult(client.postJson(url, params, header), type);
+    }
+
+    private static <T> Result<T> checkResult(Response response, Type type) throws OssException {
+        if (response.getError() != null) {
+            throw new OssException(response.getError());
+        }
+        Result<T> result = response.jsonToObject(type);
+        if (result == null) {
+            throw new OssException("request fail, stateCode:" + response.getCode());
+        }
+        if (!result.getCode().equals(Constants.API_SUCCESS_CODE) || !result.getMsg().equals(Constants.API_SUCCESS_MSG)) {
+            throw new OssException(result.getMsg());
+        }
+        return result;
+    }
+
+    private static void read(FileChannel channel, byte[] buffer, long position, int length) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+        long pos = position;
+        while (target.hasRemaining()) {
+            int n = channel.read(target, pos);
+            if (n < 0) {
+                throw new IOException("unexpected end of file at " + pos);
+            }
+            pos += n;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.berry.storage;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Title ObjectContentPublisher
+ * Description 以 ByteBuffer 分块发布对象内容，每个订阅单独发起一次读取
+ * <p>首次 request 时才发出请求；每个请求数从响应流中读取一块（最多 64KB），请求数为 0 时停止读取 socket，
+ * 未读取的数据留在 TCP 接收窗口中，由服务端暂停发送。每块为新分配的缓冲区，订阅方可以持有</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/10/10 10:50
+ */
+final class ObjectContentPublisher implements Publisher<ByteBuffer> {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * 打开对象输入流，失败时以 OssException 异常完成
+     */
+    private final Supplier<CompletableFuture<InputStream>> opener;
+    /**
+     * 执行阻塞读取的线程池
+     */
+    private final Executor executor;
+
+    ObjectContentPublisher(Supplier<CompletableFuture<InputStream>> opener, Executor executor) {
+        this.opener = opener;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new ContentSubscription(subscriber));
+    }
+
+    // ～ private
+    //=======================================================================================================================
+
+    private final class ContentSubscription extends DemandSubscription<ByteBuffer> {
+        private boolean opening;
+        private volatile InputStream in;
+        private volatile Throwable openError;
+
+        private ContentSubscription(Subscriber<? super ByteBuffer> subscriber) {
+            super(subscriber, executor);
+        }
+
+        @Override
+        void drain() {
+            if (openError != null) {
+                error(openError);
+                return;
+            }
+            InputStream current = in;
+            if (current == null) {
+                if (!opening && requested() > 0) {
+                    opening = true;
+                    opener.get().whenComplete((stream, e) -> {
+                        if (e != null) {
+                            openError = e;
+                        } else {
+                            in = stream;
+                        }
+                        schedule();
+                    });
+                }
+                return;
+            }
+            try {
+                while (requested() > 0) {
+                    byte[] chunk = new byte[CHUNK_SIZE];
+                    int n = current.read(chunk);
+                    if (n < 0) {
+                        complete();
+                        return;
+                    }
+                    if (n > 0 && !emit(ByteBuffer.wrap(chunk, 0, n))) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                error(e);
+            }
+        }
+
+        @Override
+        void release() {
+            InputStream current = in;
+            if (current != null) {
+                in = null;
+                try {
+                    current.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.berry.storage;
+
+import com.berry.util.IoUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Title ObjectDiskCache
+ * Description 对象本地磁盘缓存，总字节数超出上限时淘汰最久未使用的对象
+ * <p>每个对象对应 {hash}.data 与 {hash}.meta 两个文件，先写临时文件再原子重命名；
+ * 命中时更新 data 文件修改时间，重启后按修改时间恢复使用顺序，残缺的文件直接删除。
+ * 缓存不做新鲜度判断，每次读取由调用方以 ETag / Last-Modified 发送条件请求校验</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/27 10:10
+ */
+final class ObjectDiskCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ObjectDiskCache.class);
+
+    /**
+     * 值为弱引用，使用该目录的 ObjectManage 全部回收后移除，再次使用时从磁盘恢复
+     */
+    private static final Cache<Path, ObjectDiskCache> CACHES = CacheBuilder.newBuilder().weakValues().build();
+
+    private static final String DATA_SUFFIX = ".data";
+    private static final String META_SUFFIX = ".meta";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path dir;
+    private final long maxBytes;
+    /**
+     * 访问顺序，最久未使用在前
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * 缓存条目
+     */
+    static final class Entry {
+        private final String key;
+        private final String name;
+        @Nullable
+        private final String etag;
+        @Nullable
+        private final String lastModified;
+        private final long size;
+
+        private Entry(String key, String name, @Nullable String etag, @Nullable String lastModified, long size) {
+            this.key = key;
+            this.name = name;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        @Nullable
+        String getEtag() {
+            return etag;
+        }
+
+        @Nullable
+        String getLastModified() {
+            return lastModified;
+        }
+    }
+
+    private ObjectDiskCache(Path dir, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(dir);
+        recover();
+    }
+
+    /**
+     * 获取配置对应的缓存，同一目录共享
+     *
+     * @param config 配置
+     * @return 缓存，未启用或目录不可用时为空
+     */
+    @Nullable
+    static ObjectDiskCache get(Config config) {
+        Path dir = config.getObjectCacheDir();
+        if (dir == null || config.getObjectCacheSize() <= 0) {
+            return null;
+        }
+        Path key = dir.toAbsolutePath().normalize();
+        try {
+            return CACHES.asMap().computeIfAbsent(key, k -> {
+                try {
+                    return new ObjectDiskCache(k, config.getObjectCacheSize());
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (IllegalStateException e) {
+            logger.error("object cache unavailable, dir:{}, msg:{}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param key 缓存 key，服务地址 + bucket + 对象路径
+     * @return 条目，未缓存时为空
+     */
+    @Nullable
+    synchronized Entry lookup(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * 打开缓存文件并记为最近使用
+     *
+     * @return 位置为 0 的只读通道，文件已被淘汰时为空
+     */
+    @Nullable
+    FileChannel open(Entry entry) {
+        Path data = dir.resolve(entry.name + DATA_SUFFIX);
+        try {
+            FileChannel channel = FileChannel.open(data, StandardOpenOption.READ);
+            Files.setLastModifiedTime(data, FileTime.fromMillis(System.currentTimeMillis()));
+            return channel;
+        } catch (NoSuchFileException e) {
+            invalidate(entry);
+            return null;
+        } catch (IOException e) {
+            logger.warn("open cached object fail, key:{}, msg:{}", entry.key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写入缓存，超过上限时淘汰最久未使用的对象
+     * <p>单个对象超过上限时不缓存，返回的通道关闭后删除临时文件</p>
+     *
+     * @param key          缓存 key
+     * @param etag         响应 ETag
+     * @param lastModified 响应 Last-Modified
+     * @param in           对象内容，不关闭
+     * @return 位置为 0 的只读通道
+     */
+    FileChannel store(String key, @Nullable String etag, @Nullable String lastModified, InputStream in) throws IOException {
+        String name = hash(key);
+        Path temp = Files.createTempFile(dir, name, TEMP_SUFFIX);
+        long size;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            size = IoUtil.copy(in, channel, 0);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (size > maxBytes || etag == null && lastModified == null) {
+            return FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        Entry entry = new Entry(key, name, etag, lastModified, size);
+        Path data = dir.resolve(name + DATA_SUFFIX);
+        // 先删除旧 meta 再替换 data，中途中断时只留下无 meta 的 data，重启时清理
+        synchronized (this) {
+            FileChannel channel;
+            try {
+                Files.deleteIfExists(dir.resolve(name + META_SUFFIX));
+                Files.move(temp, data, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                channel = FileChannel.open(data, StandardOpenOption.READ);
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                Entry old = entries.remove(key);
+                if (old != null) {
+                    totalBytes -= old.size;
+                }
+                throw e;
+            }
+            Entry old = entries.put(key, entry);
+            if (old != null) {
+                totalBytes -= old.size;
+            }
+            try {
+                writeMeta(entry);
+                totalBytes += size;
+                evict();
+            } catch (IOException e) {
+                entries.remove(key);
+                delete(name);
+                logger.warn("write cache meta fail, key:{}, msg:{}", key, e.getMessage());
+            }
+            return channel;
+        }
+    }
+
+    /**
+     * 对象已删除或不可访问时移除
+     */
+    synchronized void invalidate(Entry entry) {
+        // 条目可能已被新版本替换
+        if (entries.remove(entry.key, entry)) {
+            totalBytes -= entry.size;
+            delete(entry.name);
+        }
+    }
+
+    // ～ private
+    //=======================================================================================================================
+
+    /**
+     * 调用方持有锁
+     */
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.size;
+            delete(eldest.name);
+        }
+    }
+
+    /**
+     * 按 data 文件修改时间恢复使用顺序，删除临时文件与不完整的条目
+     */
+    private void recover() throws IOException {
+        List<Entry> recovered = new ArrayList<>();
+        Map<String, FileTime> accessed = new LinkedHashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path file : stream) {
+                String fileName = file.getFileName().toString();
+                if (fileName.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                if (!fileName.endsWith(META_SUFFIX)) {
+                    continue;
+                }
+                String name = fileName.substring(0, fileName.length() - META_SUFFIX.length());
+                Entry entry = readMeta(name);
+                Path data = dir.resolve(name + DATA_SUFFIX);
+                if (entry == null || !Files.isRegularFile(data) || Files.size(data) != entry.size) {
+                    delete(name);
+                    continue;
+                }
+                recovered.add(entry);
+                accessed.put(name, Files.getLastModifiedTime(data));
+            }
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + DATA_SUFFIX)) {
+            for (Path file : stream) {
+                String fileName = file.getFileName().toString();
+                if (!accessed.containsKey(fileName.substring(0, fileName.length() - DATA_SUFFIX.length()))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        recovered.sort(Comparator.comparing(entry -> accessed.get(entry.name)));
+        synchronized (this) {
+            for (Entry entry : recovered) {
+                entries.put(entry.key, entry);
+                totalBytes += entry.size;
+            }
+            evict();
+        }
+    }
+
+    private void writeMeta(Entry entry) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("key", entry.key);
+        properties.setProperty("size", String.valueOf(entry.size));
+        if (entry.etag != null) {
+            properties.setProperty("etag", entry.etag);
+        }
+        if (entry.lastModified != null) {
+            properties.setProperty("lastModified", entry.lastModified);
+        }
+        Path temp = Files.createTempFile(dir, entry.name, TEMP_SUFFIX);
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            Files.move(temp, dir.resolve(entry.name + META_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Nullable
+    private Entry readMeta(String name) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(dir.resolve(name + META_SUFFIX), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+            String key = properties.getProperty("key");
+            String size = properties.getProperty("size");
+            if (key == null || size == null || !name.equals(hash(key))) {
+                return null;
+            }
+            return new Entry(key, name, properties.getProperty("etag"), properties.getProperty("lastModified"), Long.parseLong(size));
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void delete(String name) {
+        try {
+            Files.deleteIfExists(dir.resolve(name + DATA_SUFFIX));
+            Files.deleteIfExists(dir.resolve(name + META_SUFFIX));
+        } catch (IOException e) {
+            logger.warn("delete cached object fail, name:{}, msg:{}", name, e.getMessage());
+        }
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            char[] chars = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                chars[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+                chars[i * 2 + 1] = HEX[digest[i] & 0xf];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.berry.storage;
+
+import com.berry.common.OssException;
+import com.berry.storage.dto.ObjectInfo;
+import com.berry.storage.dto.ObjectListing;
+import com.berry.util.CloseableIterator;
+
+import javax.annotation.Nullable;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Title ObjectListingIterator
+ * Description 逐页遍历对象列表，取到第 N 页后立即异步请求第 N+1 页，与调用方消费第 N 页并行
+ * <p>内存中最多保留当前页与预取页；请求失败时 hasNext/next 抛出 UncheckedIOException，cause 为 OssException</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/24 10:40
+ */
+final class ObjectListingIterator implements CloseableIterator<ObjectInfo> {
+
+    /**
+     * 按 marker 请求一页，首页 marker 为空
+     */
+    private final Function<String, CompletableFuture<ObjectListing>> pageLoader;
+
+    private List<ObjectInfo> page = Collections.emptyList();
+    private int index;
+    @Nullable
+    private CompletableFuture<ObjectListing> next;
+
+    ObjectListingIterator(Function<String, CompletableFuture<ObjectListing>> pageLoader) {
+        this.pageLoader = pageLoader;
+        this.next = pageLoader.apply(null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index >= page.size()) {
+            if (next == null) {
+                return false;
+            }
+            ObjectListing listing = await(next);
+            next = Boolean.TRUE.equals(listing.getTruncated()) && listing.getNextMarker() != null
+                    ? pageLoader.apply(listing.getNextMarker())
+                    : null;
+            page = listing.getObjects() == null ? Collections.emptyList() : listing.getObjects();
+            index = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public ObjectInfo next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(index++);
+    }
+
+    /**
+     * 提前结束遍历，取消预取请求
+     */
+    @Override
+    public void close() {
+        if (next != null) {
+            next.cancel(true);
+            next = null;
+        }
+        page = Collections.emptyList();
+    }
+
+    private static ObjectListing await(CompletableFuture<ObjectListing> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw new UncheckedIOException(cause instanceof OssException ? (OssException) cause : new OssException(String.valueOf(cause)));
+        }
+    }
+}
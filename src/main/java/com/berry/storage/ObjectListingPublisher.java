@@ -0,0 +1,112 @@
+package com.berry.storage;
+
+import com.berry.storage.dto.ObjectInfo;
+import com.berry.storage.dto.ObjectListing;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Title ObjectListingPublisher
+ * Description 逐个发布目录下的对象，每个订阅单独从首页开始遍历
+ * <p>当前页发送完且仍有请求数时才请求下一页，内存中最多保留一页；翻页请求为异步，不占用线程等待</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/10/10 11:20
+ */
+final class ObjectListingPublisher implements Publisher<ObjectInfo> {
+
+    /**
+     * 按 marker 请求一页，首页 marker 为空
+     */
+    private final Function<String, CompletableFuture<ObjectListing>> pageLoader;
+
+    ObjectListingPublisher(Function<String, CompletableFuture<ObjectListing>> pageLoader) {
+        this.pageLoader = pageLoader;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ObjectInfo> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new ListingSubscription(subscriber));
+    }
+
+    // ～ private
+    //=======================================================================================================================
+
+    private final class ListingSubscription extends DemandSubscription<ObjectInfo> {
+        private List<ObjectInfo> page = Collections.emptyList();
+        private int index;
+        /**
+         * 下一页的 marker，首页为空
+         */
+        @Nullable
+        private String marker;
+        private boolean lastPage;
+        @Nullable
+        private CompletableFuture<ObjectListing> loading;
+        private volatile ObjectListing loaded;
+        private volatile Throwable loadError;
+
+        private ListingSubscription(Subscriber<? super ObjectInfo> subscriber) {
+            // 翻页为异步请求，drain 不阻塞，在触发线程中执行即可
+            super(subscriber, Runnable::run);
+        }
+
+        @Override
+        void drain() {
+            if (loadError != null) {
+                error(loadError);
+                return;
+            }
+            ObjectListing listing = loaded;
+            if (listing != null) {
+                loaded = null;
+                loading = null;
+                page = listing.getObjects() == null ? Collections.emptyList() : listing.getObjects();
+                index = 0;
+                marker = listing.getNextMarker();
+                lastPage = !Boolean.TRUE.equals(listing.getTruncated()) || marker == null;
+            }
+            while (index < page.size()) {
+                if (requested() == 0) {
+                    return;
+                }
+                if (!emit(page.get(index++))) {
+                    return;
+                }
+            }
+            if (lastPage) {
+                complete();
+                return;
+            }
+            if (loading == null && requested() > 0) {
+                loading = pageLoader.apply(marker);
+                loading.whenComplete((result, e) -> {
+                    if (e != null) {
+                        loadError = e;
+                    } else {
+                        loaded = result;
+                    }
+                    schedule();
+                });
+            }
+        }
+
+        @Override
+        void release() {
+            page = Collections.emptyList();
+            if (loading != null) {
+                loading.cancel(true);
+                loading = null;
+            }
+        }
+    }
+}
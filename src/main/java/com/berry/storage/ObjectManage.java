@@ -7,19 +7,52 @@ import com.berry.common.Constants;
 import com.berry.common.OssException;
 import com.berry.http.HttpClient;
 import com.berry.http.Response;
+import com.berry.http.ResponseHandler;
+import com.berry.storage.dto.DeleteResult;
+import com.berry.storage.dto.DirectoryUploadResult;
 import com.berry.storage.dto.GenerateUrlWithSigned;
 import com.berry.storage.dto.ObjectInfo;
+import com.berry.storage.dto.ObjectListing;
 import com.berry.storage.dto.Result;
 import com.berry.storage.url.UrlFactory;
 import com.berry.util.Auth;
+import com.berry.util.CloseableIterator;
+import com.berry.util.IoUtil;
 import com.berry.util.Json;
 import com.berry.util.StringMap;
-import com.google.gson.Gson;
+import com.berry.util.StringUtils;
+import okhttp3.Headers;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
@@ -35,45 +68,128 @@ public final class ObjectManage {
 
     private static final Logger logger = LoggerFactory.getLogger(ObjectManage.class);
 
+    /**
+     * 发送同步请求
+     */
+    private interface Sender {
+        Response send() throws OssException;
+    }
+
     private final String errorIMsgTemp = "request fail,stateCode:{}, msg:{}";
 
     private static final String illegalAclMsg = "illegal acl, enum [" + Constants.AclType.ALL_NAME + "]";
 
+    private static final Type OBJECT_INFO_RESULT = Json.type(Result.class, ObjectInfo.class);
+
+    private static final Type TEMP_URL_RESULT = Json.type(Result.class, GenerateUrlWithSigned.class);
+
+    private static final int NOT_FOUND = 404;
+
+    private static final int NOT_MODIFIED = 304;
+
+    private static final Type LISTING_RESULT = Json.type(Result.class, ObjectListing.class);
+
+    /**
+     * 遍历对象时每页数量，服务端上限 1000
+     */
+    private static final int LIST_PAGE_SIZE = 1000;
+
     private final Auth auth;
     private final Config config;
     private final HttpClient client;
+    @Nullable
+    private final ObjectMetadataCache metadataCache;
+    @Nullable
+    private final ObjectDiskCache objectCache;
+    @Nullable
+    private final TempUrlCache tempUrlCache;
+    /**
+     * 服务端不支持二进制请求体上传接口（返回过 http 404）
+     */
+    private volatile boolean octetUnsupported;
 
     public ObjectManage(Auth auth, Config config) {
         this.auth = auth;
         this.config = config;
-        this.client = new HttpClient(config.getUploadTimeout());
+        this.client = ClientRegistry.get(config);
+        this.metadataCache = ObjectMetadataCache.get(config);
+        this.objectCache = ObjectDiskCache.get(config);
+        this.tempUrlCache = TempUrlCache.get(config, auth.getSign(config.getAddress()));
     }
 
     /**
      * upload object byte data
+     * <p>字节数组以 JSON 数组形式编码，请求体约为原数据的 3-4 倍；服务端支持时可使用
+     * {@link #upload(String, String, String, String, byte[], int, int)} 以二进制请求体上传</p>
      */
     public ObjectInfo upload(String bucket, String acl, @Nullable String filePath, String fileName, byte[] fileData) throws OssException {
-        // 验证acl 规范
-        if (!Constants.AclType.ALL_NAME.contains(acl)) {
-            throw new IllegalArgumentException(illegalAclMsg);
-        }
-        StringMap params = new StringMap();
-        params.put("bucket", bucket);
-        params.put("acl", acl);
-        if (isNotBlank(filePath)) {
-            params.put("filePath", filePath);
-        }
-        params.put("fileName", fileName);
-        params.put("data", fileData);
-        String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.upload_byte.getUrl());
-        StringMap header = auth.authorization(url);
-        Response response = client.postComplex(url, params, header);
-        Result result = response.jsonToObject(Result.class);
-        if (result.getCode().equals(Constants.API_SUCCESS_CODE) && result.getMsg().equals(Constants.API_SUCCESS_MSG)) {
-            return Json.decode(Json.encode(result.getData()), ObjectInfo.class);
-        }
-        logger.error(errorIMsgTemp, result.getCode(), result.getMsg());
-        throw new OssException(result.getMsg());
+        StringMap params = byteParams(bucket, acl, filePath, fileName, fileData);
+        return written(bucket, filePath, fileName, () -> postBytes(params));
+    }
+
+    /**
+     * 异步 upload object byte data，同 {@link #upload(String, String, String, String, byte[])}
+     */
+    public CompletableFuture<ObjectInfo> uploadAsync(String bucket, String acl, @Nullable String filePath, String fileName, byte[] fileData) {
+        return Futures.call(() -> {
+            StringMap params = byteParams(bucket, acl, filePath, fileName, fileData);
+            return writtenAsync(bucket, filePath, fileName, () -> postBytesAsync(params));
+        });
+    }
+
+    /**
+     * 以二进制请求体上传字节数据（application/octet-stream），对象信息通过 url 参数传递
+     * <p>请求体直接引用 fileData 的指定片段，不做编码与复制</p>
+     * <p>接口（{@link UrlFactory.ObjectUrl#upload_octet}）由本 SDK 定义，服务端返回 http 404 时复制该片段
+     * 改用 {@link #upload(String, String, String, String, byte[])} 重新上传，此后不再尝试二进制请求体</p>
+     *
+     * @param bucket   bucket name
+     * @param acl      对象acl
+     * @param filePath 对象存储路径
+     * @param fileName 文件名
+     * @param fileData 数据
+     * @param offset   数据偏移
+     * @param length   数据长度
+     * @return 对象信息
+     */
+    public ObjectInfo upload(String bucket, String acl, @Nullable String filePath, String fileName, byte[] fileData, int offset, int length) throws OssException {
+        String url = octetUrl(bucket, acl, filePath, fileName);
+        return written(bucket, filePath, fileName, () -> {
+            if (!octetUnsupported) {
+                Response response = client.post(url, fileData, offset, length, auth.authorization(url), Constants.DEFAULT_MIME);
+                if (response.getCode() != NOT_FOUND) {
+                    return response;
+                }
+                octetUnsupported = true;
+            }
+            return postBytes(byteParams(bucket, acl, filePath, fileName, Arrays.copyOfRange(fileData, offset, offset + length)));
+        });
+    }
+
+    /**
+     * 异步二进制请求体上传，同 {@link #upload(String, String, String, String, byte[], int, int)}
+     */
+    public CompletableFuture<ObjectInfo> uploadAsync(String bucket, String acl, @Nullable String filePath, String fileName, byte[] fileData, int offset, int length) {
+        return Futures.call(() -> {
+            String url = octetUrl(bucket, acl, filePath, fileName);
+            return writtenAsync(bucket, filePath, fileName, () -> {
+                if (octetUnsupported) {
+                    return postBytesAsync(byteParams(bucket, acl, filePath, fileName, Arrays.copyOfRange(fileData, offset, offset + length)));
+                }
+                return client.postAsync(url, fileData, offset, length, auth.authorization(url), Constants.DEFAULT_MIME, response -> response)
+                        .thenCompose(response -> {
+                            if (response.getCode() == NOT_FOUND) {
+                                octetUnsupported = true;
+                                return postBytesAsync(byteParams(bucket, acl, filePath, fileName, Arrays.copyOfRange(fileData, offset, offset + length)));
+                            }
+                            try {
+                                return CompletableFuture.completedFuture(toObjectInfo(response));
+                            } catch (OssException e) {
+                                return Futures.failed(e);
+                            }
+                        });
+            });
+        });
     }
 
     /**
@@ -98,75 +214,268 @@ public final class ObjectManage {
      * @param files    文件
      */
     public JSONArray upload(String bucket, String acl, @Nullable String filePath, File[] files) throws OssException {
-        // 验证acl 规范
-        if (!Constants.AclType.ALL_NAME.contains(acl)) {
-            throw new IllegalArgumentException(illegalAclMsg);
-        }
-        StringMap fields = new StringMap();
-        fields.put("bucket", bucket);
-        fields.put("acl", acl);
-        if (isNotBlank(filePath)) {
-            fields.put("filePath", filePath);
-        }
+        StringMap fields = objectParams(bucket, acl, filePath);
         String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.create.getUrl());
-
         StringMap header = auth.authorization(url);
-        Response response = client.multipartPost(url, fields, "file", files, header);
-        Result result = response.jsonToObject(Result.class);
-        if (result.getCode().equals(Constants.API_SUCCESS_CODE)
-                && result.getMsg().equals(Constants.API_SUCCESS_MSG)
-                && result.getData() != null) {
-            return JSON.parseArray(JSON.toJSONString(result.getData()));
+        invalidateFiles(bucket, filePath, files);
+        try {
+            return toObjectArray(client.multipartPost(url, fields, "file", files, header));
+        } finally {
+            invalidateFiles(bucket, filePath, files);
         }
-        logger.error(errorIMsgTemp, result.getCode(), result.getMsg());
-        throw new OssException(result.getMsg());
     }
 
-    public ObjectInfo upload(String bucket, String acl, @Nullable String filePath, String fileName, String base64Data) throws OssException {
-        // 验证acl 规范
-        if (!Constants.AclType.ALL_NAME.contains(acl)) {
-            throw new IllegalArgumentException(illegalAclMsg);
+    /**
+     * 异步 single upload file，同 {@link #upload(String, String, String, File)}
+     */
+    public CompletableFuture<JSONArray> uploadAsync(String bucket, String acl, @Nullable String filePath, File file) {
+        File[] files = {file};
+        return uploadAsync(bucket, acl, filePath, files);
+    }
+
+    /**
+     * 异步 batch upload file，同 {@link #upload(String, String, String, File[])}
+     */
+    public CompletableFuture<JSONArray> uploadAsync(String bucket, String acl, @Nullable String filePath, File[] files) {
+        return Futures.call(() -> {
+            StringMap fields = objectParams(bucket, acl, filePath);
+            String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.create.getUrl());
+            StringMap header = auth.authorization(url);
+            invalidateFiles(bucket, filePath, files);
+            return client.multipartPostAsync(url, fields, "file", files, header, this::toObjectArray)
+                    .whenComplete((result, e) -> invalidateFiles(bucket, filePath, files));
+        });
+    }
+
+    /**
+     * 上传本地目录，保留目录结构
+     * <p>每个远程目录只创建一次，文件边遍历边上传，同时进行的上传数不超过 {@link Config#getUploadConcurrency()}；
+     * 单个文件失败不影响其他文件，见 {@link DirectoryUploadResult#getFailed()}</p>
+     *
+     * @param bucket       bucket name
+     * @param acl          对象acl
+     * @param dir          本地目录
+     * @param remotePrefix 远程目录，为空时上传到 bucket 根目录
+     * @return 上传结果
+     */
+    public DirectoryUploadResult uploadDirectory(String bucket, String acl, Path dir, @Nullable String remotePrefix) throws OssException {
+        checkAcl(acl);
+        try {
+            return new DirectoryUploader(this, config.getUploadConcurrency()).upload(bucket, acl, dir, remotePrefix);
+        } catch (IOException e) {
+            throw new OssException(e.getMessage());
         }
-        StringMap params = new StringMap();
-        params.put("bucket", bucket);
-        params.put("acl", acl);
-        if (isNotBlank(filePath)) {
-            params.put("filePath", filePath);
+    }
+
+    /**
+     * 分片并发上传文件，适用于大文件
+     * <p>分片大小与并发数见 {@link Config#getUploadPartSize()}、{@link Config#getUploadConcurrency()}，
+     * 单个分片受上传超时限制，而非整个文件</p>
+     * <p>注意：分片上传接口由本 SDK 定义，仅在测试用模拟服务中实现与验证，需服务端提供相同接口后使用，
+     * 见 {@link com.berry.storage.url.UrlFactory.ObjectUrl#init_multipart_upload}</p>
+     *
+     * @param bucket   bucket name
+     * @param acl      对象acl
+     * @param filePath 对象存储路径
+     * @param file     文件
+     * @return 对象信息
+     */
+    public ObjectInfo multipartUpload(String bucket, String acl, @Nullable String filePath, File file) throws OssException {
+        checkAcl(acl);
+        MultipartUploader uploader = new MultipartUploader(client, auth, config.getAddress(), config.getUploadPartSize(), config.getUploadConcurrency());
+        String fullPath = ObjectMetadataCache.fullPath(filePath, file.getName());
+        long version = beforeWrite(bucket, fullPath);
+        ObjectInfo info = null;
+        try {
+            info = uploader.upload(bucket, acl, filePath, file);
+            return info;
+        } finally {
+            afterWrite(bucket, fullPath, info, version);
         }
-        params.put("fileName", fileName);
-        params.put("data", base64Data);
+    }
+
+    public ObjectInfo upload(String bucket, String acl, @Nullable String filePath, String fileName, String base64Data) throws OssException {
+        StringMap params = objectParams(bucket, acl, filePath).put("fileName", fileName).put("data", base64Data);
         String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.upload_base64.getUrl());
         StringMap header = auth.authorization(url);
-        Response response = client.postComplex(url, params, header);
-        Result result = response.jsonToObject(Result.class);
-        if (result.getCode().equals(Constants.API_SUCCESS_CODE)
-                && result.getMsg().equals(Constants.API_SUCCESS_MSG)
-                && result.getData() != null) {
-            return Json.decode(Json.encode(result.getData()), ObjectInfo.class);
-        }
-        logger.error(errorIMsgTemp, result.getCode(), result.getMsg());
-        throw new OssException(result.getMsg());
+        return written(bucket, filePath, fileName, () -> client.postComplex(url, params, header));
+    }
+
+    /**
+     * 异步 base64 上传，同 {@link #upload(String, String, String, String, String)}
+     */
+    public CompletableFuture<ObjectInfo> uploadAsync(String bucket, String acl, @Nullable String filePath, String fileName, String base64Data) {
+        return Futures.call(() -> {
+            StringMap params = objectParams(bucket, acl, filePath).put("fileName", fileName).put("data", base64Data);
+            String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.upload_base64.getUrl());
+            StringMap header = auth.authorization(url);
+            return writtenAsync(bucket, filePath, fileName, () -> client.postComplexAsync(url, params, header, this::toObjectInfo));
+        });
     }
 
     /**
      * 读取对象
+     * <p>配置了本地缓存目录（{@link Config#setObjectCacheDir(Path)}）时经磁盘缓存读取，
+     * 对象未修改时服务端仅返回 304，同样适用于以下同步读取方法</p>
      *
      * @param bucket         bucket name
      * @param fullObjectPath 对象全路径 不已 '/' 开头
      * @return 对象二进制数组
      */
     public byte[] getObject(String bucket, String fullObjectPath) throws OssException {
-        if (fullObjectPath.startsWith("/")) {
-            throw new IllegalArgumentException("object full path not allow start with / ");
+        if (objectCache != null) {
+            try (FileChannel channel = getCachedObject(objectCache, bucket, fullObjectPath)) {
+                return IoUtil.toByteArray(channel);
+            } catch (OssException e) {
+                throw e;
+            } catch (IOException e) {
+                throw new OssException(e.getMessage());
+            }
         }
-        String url = String.format(config.getAddress() + UrlFactory.ObjectUrl.get_object.getUrl(), bucket, fullObjectPath);
-        Response response = get(url);
-        if (response.isSuccessful() && response.getContentType().startsWith(Constants.DEFAULT_MIME)) {
-            return response.getBody();
+        String url = objectUrl(bucket, fullObjectPath);
+        return toObjectData(get(url));
+    }
+
+    /**
+     * 异步读取对象，同 {@link #getObject(String, String)}
+     * <p>配置了本地缓存目录时同样经磁盘缓存读取，条件请求异步发送，304 时在回调线程上读取本地文件</p>
+     */
+    public CompletableFuture<byte[]> getObjectAsync(String bucket, String fullObjectPath) {
+        return Futures.call(() -> {
+            if (objectCache != null) {
+                return getCachedObjectAsync(objectCache, bucket, fullObjectPath).thenApply(channel -> {
+                    try (FileChannel in = channel) {
+                        return IoUtil.toByteArray(in);
+                    } catch (IOException e) {
+                        throw new CompletionException(new OssException(e.getMessage()));
+                    }
+                });
+            }
+            String url = objectUrl(bucket, fullObjectPath);
+            StringMap header = auth.authorization(url);
+            String withTokenUrl = url + "?token=" + header.get(Auth.OSS_SDK_AUTH_HEAD_NAME);
+            return client.getAsync(withTokenUrl, header, this::toObjectData);
+        });
+    }
+
+    /**
+     * 以流的形式读取对象，对象内容不缓冲在内存中
+     *
+     * @param bucket         bucket name
+     * @param fullObjectPath 对象全路径 不已 '/' 开头
+     * @return 对象输入流，使用完毕必须关闭
+     */
+    public InputStream getObjectStream(String bucket, String fullObjectPath) throws OssException {
+        if (objectCache != null) {
+            return Channels.newInputStream(getCachedObject(objectCache, bucket, fullObjectPath));
         }
-        Result result = response.jsonToObject(Result.class);
-        logger.error(errorIMsgTemp, result.getCode(), result.getMsg());
-        throw new OssException(result.getMsg());
+        String url = objectUrl(bucket, fullObjectPath);
+        Response response = getStream(url);
+        if (isObjectStream(response)) {
+            return response.getBodyStream();
+        }
+        throw objectError(response);
+    }
+
+    /**
+     * 以 Reactive Streams 发布对象内容，每个订阅发起一次读取，按订阅方的请求数逐块（最多 64KB）读取响应流
+     * <p>订阅方不再请求时停止读取 socket，内存中不会堆积未消费的数据；JDK 9 及以上可用
+     * {@code FlowAdapters.toFlowPublisher} 转换为 {@code java.util.concurrent.Flow.Publisher}。
+     * 读取失败时 onError 为 OssException</p>
+     *
+     * @param bucket         bucket name
+     * @param fullObjectPath 对象全路径 不已 '/' 开头
+     * @return 对象内容发布者
+     */
+    public Publisher<ByteBuffer> getObjectPublisher(String bucket, String fullObjectPath) {
+        String url = objectUrl(bucket, fullObjectPath);
+        return new ObjectContentPublisher(() -> getObjectStreamAsync(bucket, fullObjectPath, url), client.dispatcherExecutor());
+    }
+
+    /**
+     * 读取对象，写入输出流，不关闭输出流
+     *
+     * @param bucket         bucket name
+     * @param fullObjectPath 对象全路径 不已 '/' 开头
+     * @param out            输出流
+     * @return 写入字节数
+     */
+    public long getObject(String bucket, String fullObjectPath, OutputStream out) throws OssException {
+        return getObject(bucket, fullObjectPath, Channels.newChannel(out));
+    }
+
+    /**
+     * 读取对象，写入通道，不关闭通道
+     *
+     * @param bucket         bucket name
+     * @param fullObjectPath 对象全路径 不已 '/' 开头
+     * @param target         目标通道
+     * @return 写入字节数
+     */
+    public long getObject(String bucket, String fullObjectPath, WritableByteChannel target) throws OssException {
+        if (objectCache != null) {
+            try (FileChannel channel = getCachedObject(objectCache, bucket, fullObjectPath)) {
+                return IoUtil.transfer(channel, target);
+            } catch (OssException e) {
+                throw e;
+            } catch (IOException e) {
+                throw new OssException(e.getMessage());
+            }
+        }
+        try (InputStream in = getObjectStream(bucket, fullObjectPath)) {
+            return IoUtil.copy(in, target);
+        } catch (OssException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new OssException(e.getMessage());
+        }
+    }
+
+    /**
+     * 读取对象，保存到本地文件，文件已存在时覆盖
+     *
+     * @param bucket         bucket name
+     * @param fullObjectPath 对象全路径 不已 '/' 开头
+     * @param target         本地文件路径
+     * @return 写入字节数
+     */
+    public long getObject(String bucket, String fullObjectPath, Path target) throws OssException {
+        if (objectCache != null) {
+            try (FileChannel channel = getCachedObject(objectCache, bucket, fullObjectPath);
+                 FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                return IoUtil.transfer(channel, out);
+            } catch (OssException e) {
+                throw e;
+            } catch (IOException e) {
+                throw new OssException(e.getMessage());
+            }
+        }
+        try (InputStream in = getObjectStream(bucket, fullObjectPath);
+             FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return IoUtil.copy(in, channel, 0);
+        } catch (OssException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new OssException(e.getMessage());
+        }
+    }
+
+    /**
+     * 分片并发下载对象到本地文件，适用于大对象
+     * <p>分片大小与并发数见 {@link Config#getDownloadPartSize()}、{@link Config#getDownloadConcurrency()}，
+     * 服务端不支持 Range 请求时退化为单连接下载</p>
+     *
+     * @param bucket         bucket name
+     * @param fullObjectPath 对象全路径 不已 '/' 开头
+     * @param target         本地文件路径，已存在时覆盖，下载失败时删除
+     * @return 对象大小
+     */
+    public long download(String bucket, String fullObjectPath, Path target) throws OssException {
+        String url = objectUrl(bucket, fullObjectPath);
+        StringMap header = auth.authorization(url);
+        String withTokenUrl = url + "?token=" + header.get(Auth.OSS_SDK_AUTH_HEAD_NAME);
+        ParallelDownloader downloader = new ParallelDownloader(client, config.getDownloadPartSize(), config.getDownloadConcurrency());
+        return downloader.download(withTokenUrl, header, target);
     }
 
     /**
@@ -181,20 +490,18 @@ public final class ObjectManage {
      * @return 成功与否
      */
     public boolean createFolder(String bucket, String folder) throws OssException {
-        if (folder.matches(Constants.FILE_PATH_REG)) {
-            throw new IllegalArgumentException("目录名不符合规则");
-        }
-        StringMap params = new StringMap();
-        params.put("bucket", bucket);
-        params.put("folder", folder);
         String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.create_folder.getUrl());
-        Response response = post(url, params);
-        Result result = response.jsonToObject(Result.class);
-        boolean res = result.getCode().equals(Constants.API_SUCCESS_CODE) && result.getMsg().equals(Constants.API_SUCCESS_MSG);
-        if (!res) {
-            throw new OssException(result.getMsg());
-        }
-        return true;
+        return toSuccess(post(url, folderParams(bucket, folder)));
+    }
+
+    /**
+     * 异步创建目录，同 {@link #createFolder(String, String)}
+     */
+    public CompletableFuture<Boolean> createFolderAsync(String bucket, String folder) {
+        return Futures.call(() -> {
+            String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.create_folder.getUrl());
+            return postAsync(url, folderParams(bucket, folder), this::toSuccess);
+        });
     }
 
     /**
@@ -223,17 +530,58 @@ public final class ObjectManage {
         params.put("bucket", bucket);
         params.put("objectIds", objectIds);
         String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.delete_objects.getUrl());
-        Response response = post(url, params);
-        Result result = response.jsonToObject(Result.class);
-        boolean res = result.getCode().equals(Constants.API_SUCCESS_CODE) && result.getMsg().equals(Constants.API_SUCCESS_MSG);
-        if (!res) {
-            throw new OssException(result.getMsg());
+        invalidateBucket(bucket);
+        try {
+            return toSuccess(post(url, params));
+        } finally {
+            invalidateBucket(bucket);
         }
-        return true;
+    }
+
+    /**
+     * 异步删除对象或目录，同 {@link #removeObjectOrFolder(String, String)}
+     */
+    public CompletableFuture<Boolean> removeObjectOrFolderAsync(String bucket, String objectIds) {
+        StringMap params = new StringMap();
+        params.put("bucket", bucket);
+        params.put("objectIds", objectIds);
+        String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.delete_objects.getUrl());
+        invalidateBucket(bucket);
+        return postAsync(url, params, this::toSuccess).whenComplete((result, e) -> invalidateBucket(bucket));
+    }
+
+    /**
+     * 批量删除对象或目录
+     * <p>id 按 {@link Config#getDeleteBatchSize()} 切分为多个请求，同时进行的请求数不超过
+     * {@link Config#getDeleteConcurrency()}；部分批次失败不影响其他批次，失败的 id 可重试</p>
+     *
+     * @param bucket    存储空间名
+     * @param objectIds 对象或目录 id，重复 id 只删除一次
+     * @return 每个 id 的删除结果
+     */
+    public DeleteResult deleteObjects(String bucket, Collection<String> objectIds) {
+        return deleteObjectsAsync(bucket, objectIds).join();
+    }
+
+    /**
+     * 异步批量删除对象或目录，同 {@link #deleteObjects(String, Collection)}，返回的 future 不会异常完成
+     */
+    public CompletableFuture<DeleteResult> deleteObjectsAsync(String bucket, Collection<String> objectIds) {
+        String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.delete_objects.getUrl());
+        BatchDeleter deleter = new BatchDeleter(ids -> {
+            StringMap params = new StringMap();
+            params.put("bucket", bucket);
+            params.put("objectIds", String.join(",", ids));
+            return postAsync(url, params, this::toDeletedIds);
+        }, config.getDeleteBatchSize(), config.getDeleteConcurrency());
+        invalidateBucket(bucket);
+        return deleter.delete(objectIds).whenComplete((result, e) -> invalidateBucket(bucket));
     }
 
     /**
      * 获取对象临时访问链接
+     * <p>启用缓存（{@link Config#setTempUrlCacheSize(long)}）时，相同对象、相同有效时间的链接在剩余有效时间
+     * 不足安全余量（有效时间的 1/10，至少 30 秒）之前复用</p>
      *
      * @param bucket     bucket name
      * @param objectPath 对象全路径
@@ -241,6 +589,291 @@ public final class ObjectManage {
      * @return url
      */
     public String getObjectTempAccessUrlWithExpired(String bucket, String objectPath, Integer timeout) throws OssException {
+        StringMap params = tempAccessUrlParams(bucket, objectPath, timeout);
+        String cached = tempUrlCache == null ? null : tempUrlCache.get(bucket, objectPath, timeout);
+        if (cached != null) {
+            return cached;
+        }
+        String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.generate_url_with_signed.getUrl());
+        return tempAccessUrlSigned(bucket, objectPath, timeout, System.nanoTime()).handle(post(url, params));
+    }
+
+    /**
+     * 异步获取对象临时访问链接，同 {@link #getObjectTempAccessUrlWithExpired(String, String, Integer)}
+     */
+    public CompletableFuture<String> getObjectTempAccessUrlWithExpiredAsync(String bucket, String objectPath, Integer timeout) {
+        return Futures.call(() -> {
+            StringMap params = tempAccessUrlParams(bucket, objectPath, timeout);
+            String cached = tempUrlCache == null ? null : tempUrlCache.get(bucket, objectPath, timeout);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.generate_url_with_signed.getUrl());
+            return postAsync(url, params, tempAccessUrlSigned(bucket, objectPath, timeout, System.nanoTime()));
+        });
+    }
+
+    /**
+     * 批量获取对象临时访问链接，未缓存的对象同时请求，并发数受连接调度器限制
+     *
+     * @param bucket      bucket name
+     * @param objectPaths 对象全路径，重复路径只请求一次
+     * @param timeout     链接有效时间
+     * @return 对象路径 -> url，顺序同 objectPaths
+     * @throws OssException 任一对象获取失败
+     */
+    public Map<String, String> getObjectTempAccessUrls(String bucket, Collection<String> objectPaths, Integer timeout) throws OssException {
+        try {
+            return getObjectTempAccessUrlsAsync(bucket, objectPaths, timeout).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof OssException ? (OssException) cause : new OssException(String.valueOf(cause));
+        }
+    }
+
+    /**
+     * 异步批量获取对象临时访问链接，同 {@link #getObjectTempAccessUrls(String, Collection, Integer)}
+     */
+    public CompletableFuture<Map<String, String>> getObjectTempAccessUrlsAsync(String bucket, Collection<String> objectPaths, Integer timeout) {
+        Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+        for (String objectPath : objectPaths) {
+            futures.computeIfAbsent(objectPath, path -> getObjectTempAccessUrlWithExpiredAsync(bucket, path, timeout));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            Map<String, String> urls = new LinkedHashMap<>(futures.size() * 2);
+            futures.forEach((path, future) -> urls.put(path, future.join()));
+            return urls;
+        });
+    }
+
+    /**
+     * 获取对象元数据，不下载对象内容
+     * <p>启用元数据缓存（{@link Config#setMetadataCacheSize(long)}）时优先读取缓存，返回的对象为缓存共享实例，请勿修改</p>
+     *
+     * @param bucket     bucket name
+     * @param objectPath 对象全路径
+     * @return 对象信息，对象不存在时为空
+     */
+    @Nullable
+    public ObjectInfo headObject(String bucket, String objectPath) throws OssException {
+        Optional<ObjectInfo> cached = cachedMetadata(bucket, objectPath);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        long version = metadataVersion(bucket, objectPath);
+        return headed(bucket, objectPath, version).handle(getJson(headObjectUrl(bucket, objectPath)));
+    }
+
+    /**
+     * 异步获取对象元数据，同 {@link #headObject(String, String)}
+     */
+    public CompletableFuture<ObjectInfo> headObjectAsync(String bucket, String objectPath) {
+        Optional<ObjectInfo> cached = cachedMetadata(bucket, objectPath);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached.orElse(null));
+        }
+        String url = headObjectUrl(bucket, objectPath);
+        StringMap header = auth.authorization(url);
+        logger.debug("request url:{}, header:{}", url, header.map());
+        long version = metadataVersion(bucket, objectPath);
+        return client.getAsync(url, header, headed(bucket, objectPath, version));
+    }
+
+    /**
+     * 对象是否存在，同 {@link #headObject(String, String)}
+     */
+    public boolean objectExists(String bucket, String objectPath) throws OssException {
+        return headObject(bucket, objectPath) != null;
+    }
+
+    /**
+     * 更新对象读写权限
+     *
+     * @param bucket     bucket name
+     * @param objectPath 对象全路径
+     * @param acl        权限
+     * @return 成功与否
+     */
+    public boolean updateObjectAcl(String bucket, String objectPath, String acl) throws OssException {
+        String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.set_object_acl.getUrl());
+        StringMap params = objectAclParams(bucket, objectPath, acl);
+        long version = beforeWrite(bucket, objectPath);
+        try {
+            return toSuccess(post(url, params));
+        } finally {
+            afterWrite(bucket, objectPath, null, version);
+        }
+    }
+
+    /**
+     * 异步更新对象读写权限，同 {@link #updateObjectAcl(String, String, String)}
+     */
+    public CompletableFuture<Boolean> updateObjectAclAsync(String bucket, String objectPath, String acl) {
+        return Futures.call(() -> {
+            String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.set_object_acl.getUrl());
+            StringMap params = objectAclParams(bucket, objectPath, acl);
+            long version = beforeWrite(bucket, objectPath);
+            return postAsync(url, params, this::toSuccess).whenComplete((result, e) -> afterWrite(bucket, objectPath, null, version));
+        });
+    }
+
+    /**
+     * 分页列出对象，包含子目录中的对象，按全路径排序
+     *
+     * @param bucket bucket name
+     * @param path   目录，为空时列出全部
+     * @param marker 上一页的 nextMarker，首页为空
+     * @param limit  每页数量 1-1000
+     * @return 一页对象
+     */
+    public ObjectListing listObjects(String bucket, @Nullable String path, @Nullable String marker, int limit) throws OssException {
+        return toObjectListing(getJson(listObjectsUrl(bucket, path, marker, limit)));
+    }
+
+    /**
+     * 异步分页列出对象，同 {@link #listObjects(String, String, String, int)}
+     */
+    public CompletableFuture<ObjectListing> listObjectsAsync(String bucket, @Nullable String path, @Nullable String marker, int limit) {
+        return Futures.call(() -> {
+            String url = listObjectsUrl(bucket, path, marker, limit);
+            StringMap header = auth.authorization(url);
+            logger.debug("request url:{}, header:{}", url, header.map());
+            return client.getAsync(url, header, this::toObjectListing);
+        });
+    }
+
+    /**
+     * 遍历目录下全部对象，按需逐页请求，消费当前页时后台预取下一页
+     * <p>遍历失败时 hasNext/next 抛出 UncheckedIOException，cause 为 OssException；
+     * 未遍历完就结束时关闭迭代器以取消预取请求，如使用 try-with-resources</p>
+     *
+     * @param bucket bucket name
+     * @param path   目录，为空时遍历全部
+     * @return 对象迭代器
+     */
+    public CloseableIterator<ObjectInfo> listAllObjects(String bucket, @Nullable String path) {
+        return listAllObjects(bucket, path, LIST_PAGE_SIZE);
+    }
+
+    /**
+     * 遍历目录下全部对象，同 {@link #listAllObjects(String, String)}
+     *
+     * @param pageSize 每页数量 1-1000
+     */
+    public CloseableIterator<ObjectInfo> listAllObjects(String bucket, @Nullable String path, int pageSize) {
+        return new ObjectListingIterator(marker -> listObjectsAsync(bucket, path, marker, pageSize));
+    }
+
+    /**
+     * 以流的形式遍历目录下全部对象，规则同 {@link #listAllObjects(String, String)}
+     * <p>提前结束时关闭流以取消预取请求</p>
+     */
+    public Stream<ObjectInfo> streamObjects(String bucket, @Nullable String path) {
+        ObjectListingIterator iterator = new ObjectListingIterator(marker -> listObjectsAsync(bucket, path, marker, LIST_PAGE_SIZE));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * 以 Reactive Streams 逐个发布目录下全部对象，包含子目录中的对象，按全路径排序
+     * <p>当前页发送完且订阅方仍有请求数时才请求下一页；请求失败时 onError 为 OssException</p>
+     *
+     * @param bucket bucket name
+     * @param path   目录，为空时发布全部
+     * @return 对象发布者
+     */
+    public Publisher<ObjectInfo> listObjectsPublisher(String bucket, @Nullable String path) {
+        return listObjectsPublisher(bucket, path, LIST_PAGE_SIZE);
+    }
+
+    /**
+     * 以 Reactive Streams 逐个发布目录下全部对象，同 {@link #listObjectsPublisher(String, String)}
+     *
+     * @param pageSize 每页数量 1-1000
+     */
+    public Publisher<ObjectInfo> listObjectsPublisher(String bucket, @Nullable String path, int pageSize) {
+        return new ObjectListingPublisher(marker -> listObjectsAsync(bucket, path, marker, pageSize));
+    }
+
+    // ～ private
+    //=======================================================================================================================
+
+    private static void checkAcl(String acl) {
+        // 验证acl 规范
+        if (!Constants.AclType.ALL_NAME.contains(acl)) {
+            throw new IllegalArgumentException(illegalAclMsg);
+        }
+    }
+
+    private static StringMap objectParams(String bucket, String acl, @Nullable String filePath) {
+        checkAcl(acl);
+        StringMap params = new StringMap();
+        params.put("bucket", bucket);
+        params.put("acl", acl);
+        if (isNotBlank(filePath)) {
+            params.put("filePath", filePath);
+        }
+        return params;
+    }
+
+    private static StringMap byteParams(String bucket, String acl, @Nullable String filePath, String fileName, byte[] fileData) {
+        return objectParams(bucket, acl, filePath).put("fileName", fileName).put("data", fileData);
+    }
+
+    private Response postBytes(StringMap params) throws OssException {
+        String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.upload_byte.getUrl());
+        return client.postComplex(url, params, auth.authorization(url));
+    }
+
+    private CompletableFuture<ObjectInfo> postBytesAsync(StringMap params) {
+        String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.upload_byte.getUrl());
+        return client.postComplexAsync(url, params, auth.authorization(url), this::toObjectInfo);
+    }
+
+    private String octetUrl(String bucket, String acl, @Nullable String filePath, String fileName) {
+        StringMap params = objectParams(bucket, acl, filePath).put("fileName", fileName);
+        return String.format("%s%s?%s", config.getAddress(), UrlFactory.ObjectUrl.upload_octet.getUrl(), StringUtils.encodeUrlParams(params));
+    }
+
+    private static StringMap folderParams(String bucket, String folder) {
+        if (!folder.matches(Constants.FILE_PATH_REG)) {
+            throw new IllegalArgumentException("目录名不符合规则");
+        }
+        StringMap params = new StringMap();
+        params.put("bucket", bucket);
+        params.put("folder", folder);
+        return params;
+    }
+
+    private String headObjectUrl(String bucket, String objectPath) {
+        StringMap params = new StringMap().put("bucket", bucket).put("objectPath", objectPath);
+        return String.format("%s%s?%s", config.getAddress(), UrlFactory.ObjectUrl.head_object.getUrl(), StringUtils.encodeUrlParams(params));
+    }
+
+    private static StringMap objectAclParams(String bucket, String objectPath, String acl) {
+        checkAcl(acl);
+        StringMap params = new StringMap();
+        params.put("bucket", bucket);
+        params.put("objectPath", objectPath);
+        params.put("acl", acl);
+        return params;
+    }
+
+    private String listObjectsUrl(String bucket, @Nullable String path, @Nullable String marker, int limit) {
+        if (limit < 1 || limit > LIST_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must between 1 and " + LIST_PAGE_SIZE);
+        }
+        StringMap params = new StringMap().put("bucket", bucket).put("limit", limit);
+        if (isNotBlank(path)) {
+            params.put("path", path);
+        }
+        if (isNotBlank(marker)) {
+            params.put("marker", marker);
+        }
+        return String.format("%s%s?%s", config.getAddress(), UrlFactory.ObjectUrl.list_objects.getUrl(), StringUtils.encodeUrlParams(params));
+    }
+
+    private static StringMap tempAccessUrlParams(String bucket, String objectPath, Integer timeout) {
         if (timeout == null || timeout < 60 || timeout > 64800) {
             throw new IllegalArgumentException("timeout must between 60 and 64800");
         }
@@ -248,17 +881,359 @@ public final class ObjectManage {
         params.put("bucket", bucket);
         params.put("objectPath", objectPath);
         params.put("timeout", timeout);
-        String url = String.format("%s%s", config.getAddress(), UrlFactory.ObjectUrl.generate_url_with_signed.getUrl());
-        Response response = post(url, params);
-        Result result = response.jsonToObject(Result.class);
+        return params;
+    }
+
+    /**
+     * 按目标类型一次解码响应体，校验业务响应码，失败时抛出异常
+     *
+     * @param type Result 的具体类型，如 Result&lt;ObjectInfo&gt;
+     */
+    private <T> Result<T> checkResult(Response response, Type type) throws OssException {
+        return checkResult(response, response.<Result<T>>jsonToObject(type));
+    }
+
+    /**
+     * 校验已解码的响应
+     */
+    private <T> Result<T> checkResult(Response response, @Nullable Result<T> result) throws OssException {
+        if (result == null) {
+            String msg = response.getError() != null ? response.getError() : response.getMessage();
+            logger.error(errorIMsgTemp, response.getCode(), msg);
+            throw new OssException(msg);
+        }
         if (result.getCode().equals(Constants.API_SUCCESS_CODE) && result.getMsg().equals(Constants.API_SUCCESS_MSG)) {
-            GenerateUrlWithSigned vo = new Gson().fromJson(Json.encode(result.getData()), GenerateUrlWithSigned.class);
-            return vo.getUrl() + "?" + vo.getSignature();
+            return result;
         }
         logger.error(errorIMsgTemp, result.getCode(), result.getMsg());
         throw new OssException(result.getMsg());
     }
 
+    private ObjectInfo toObjectInfo(Response response) throws OssException {
+        Result<ObjectInfo> result = checkResult(response, OBJECT_INFO_RESULT);
+        return result.getData();
+    }
+
+    // ～ cache
+    //=======================================================================================================================
+
+    /**
+     * 经本地磁盘缓存读取对象：已缓存时带 If-None-Match / If-Modified-Since 请求，304 时使用本地文件，
+     * 否则下载写入缓存；对象已不存在或无权访问时移除缓存
+     *
+     * @return 位置为 0 的文件通道，调用方负责关闭
+     */
+    private FileChannel getCachedObject(ObjectDiskCache cache, String bucket, String fullObjectPath) throws OssException {
+        CachedRequest request = new CachedRequest(cache, objectUrl(bucket, fullObjectPath));
+        Response response;
+        try {
+            response = client.getStream(request.withTokenUrl, request.header);
+        } catch (OssException e) {
+            closeQuietly(request.cached);
+            throw e;
+        }
+        return request.complete(response);
+    }
+
+    /**
+     * 异步经本地磁盘缓存读取对象，同 {@link #getCachedObject(ObjectDiskCache, String, String)}
+     */
+    private CompletableFuture<FileChannel> getCachedObjectAsync(ObjectDiskCache cache, String bucket, String fullObjectPath) {
+        CachedRequest request = new CachedRequest(cache, objectUrl(bucket, fullObjectPath));
+        CompletableFuture<FileChannel> future = new CompletableFuture<>();
+        client.asyncGetStream(request.withTokenUrl, request.header, response -> {
+            try {
+                future.complete(request.complete(response));
+            } catch (OssException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 经磁盘缓存的一次条件请求
+     */
+    private final class CachedRequest {
+        private final ObjectDiskCache cache;
+        private final String url;
+        @Nullable
+        private final ObjectDiskCache.Entry entry;
+        @Nullable
+        private final FileChannel cached;
+        private final StringMap header;
+        private final String withTokenUrl;
+
+        private CachedRequest(ObjectDiskCache cache, String url) {
+            this.cache = cache;
+            this.url = url;
+            this.entry = cache.lookup(url);
+            this.cached = entry == null ? null : cache.open(entry);
+            this.header = auth.authorization(url);
+            logger.debug("request url:{}, header:{}", url, header.map());
+            this.withTokenUrl = url + "?token=" + header.get(Auth.OSS_SDK_AUTH_HEAD_NAME);
+            if (cached != null) {
+                header.putNotNull("If-None-Match", entry.getEtag());
+                header.putNotNull("If-Modified-Since", entry.getLastModified());
+            }
+        }
+
+        /**
+         * 处理响应：304 时返回本地文件，对象内容写入缓存后返回，其他响应移除缓存（请求未完成时保留）
+         */
+        private FileChannel complete(Response response) throws OssException {
+            if (cached != null && response.getCode() == NOT_MODIFIED) {
+                return cached;
+            }
+            closeQuietly(cached);
+            if (response.getError() != null) {
+                throw new OssException(response.getError());
+            }
+            if (isObjectStream(response)) {
+                try (InputStream in = response.getBodyStream()) {
+                    Headers headers = response.getHeaders();
+                    return cache.store(url, headers.get("ETag"), headers.get("Last-Modified"), in);
+                } catch (IOException e) {
+                    throw new OssException(e.getMessage());
+                }
+            }
+            if (entry != null) {
+                cache.invalidate(entry);
+            }
+            throw objectError(response);
+        }
+    }
+
+    @Nullable
+    @SuppressWarnings("OptionalAssignedToNull")
+    private Optional<ObjectInfo> cachedMetadata(String bucket, String objectPath) {
+        return metadataCache == null ? null : metadataCache.get(bucket, objectPath);
+    }
+
+    private long metadataVersion(String bucket, String objectPath) {
+        return metadataCache == null ? 0 : metadataCache.version(bucket, objectPath);
+    }
+
+    /**
+     * 解码元数据，查询开始后对象没有被修改时缓存；对象不存在（http 404 或业务码 404）时返回空
+     *
+     * @param version 查询发送前的版本号
+     */
+    private ResponseHandler<ObjectInfo> headed(String bucket, String objectPath, long version) {
+        return response -> {
+            Result<ObjectInfo> result = response.jsonToObject(OBJECT_INFO_RESULT);
+            ObjectInfo info;
+            if (response.getCode() == NOT_FOUND || result != null && String.valueOf(NOT_FOUND).equals(result.getCode())) {
+                info = null;
+            } else {
+                info = checkResult(response, result).getData();
+            }
+            if (metadataCache != null) {
+                metadataCache.put(bucket, objectPath, info, version);
+            }
+            return info;
+        };
+    }
+
+    /**
+     * 上传对象，发送前失效元数据缓存，结束后（包括请求失败、超时）再次失效，成功时缓存返回的对象信息
+     */
+    private ObjectInfo written(String bucket, @Nullable String filePath, String fileName, Sender sender) throws OssException {
+        String fullPath = ObjectMetadataCache.fullPath(filePath, fileName);
+        long version = beforeWrite(bucket, fullPath);
+        ObjectInfo info = null;
+        try {
+            info = toObjectInfo(sender.send());
+            return info;
+        } finally {
+            afterWrite(bucket, fullPath, info, version);
+        }
+    }
+
+    /**
+     * 异步上传对象，同 {@link #written(String, String, String, Sender)}
+     */
+    private CompletableFuture<ObjectInfo> writtenAsync(String bucket, @Nullable String filePath, String fileName, Supplier<CompletableFuture<ObjectInfo>> sender) {
+        String fullPath = ObjectMetadataCache.fullPath(filePath, fileName);
+        long version = beforeWrite(bucket, fullPath);
+        CompletableFuture<ObjectInfo> future;
+        try {
+            future = sender.get();
+        } catch (RuntimeException e) {
+            afterWrite(bucket, fullPath, null, version);
+            return Futures.failed(e);
+        }
+        return future.whenComplete((info, e) -> afterWrite(bucket, fullPath, info, version));
+    }
+
+    /**
+     * 写操作发送前失效元数据缓存
+     *
+     * @return 版本号，结束时传给 {@link #afterWrite(String, String, ObjectInfo, long)}
+     */
+    private long beforeWrite(String bucket, String fullPath) {
+        return metadataCache == null ? 0 : metadataCache.invalidate(bucket, fullPath);
+    }
+
+    /**
+     * 写操作结束后再次失效，成功且期间没有其他写操作时缓存返回的对象信息
+     *
+     * @param info 返回的对象信息，失败或不返回时为空
+     */
+    private void afterWrite(String bucket, String fullPath, @Nullable ObjectInfo info, long version) {
+        if (metadataCache != null) {
+            metadataCache.written(bucket, fullPath, info, version);
+        }
+    }
+
+    private void invalidateFiles(String bucket, @Nullable String filePath, File[] files) {
+        if (metadataCache != null) {
+            for (File file : files) {
+                metadataCache.invalidate(bucket, ObjectMetadataCache.fullPath(filePath, file.getName()));
+            }
+        }
+    }
+
+    /**
+     * 按 id 删除，无法得知对象路径，失效整个 bucket
+     */
+    private void invalidateBucket(String bucket) {
+        if (metadataCache != null) {
+            metadataCache.invalidateBucket(bucket);
+        }
+    }
+
+    private JSONArray toObjectArray(Response response) throws OssException {
+        Result<Object> result = checkResult(response, Result.class);
+        if (result.getData() == null) {
+            throw new OssException("empty result");
+        }
+        // 已解码的 List/Map 直接转换，不再序列化后重新解析
+        return (JSONArray) JSON.toJSON(result.getData());
+    }
+
+    /**
+     * @return 服务端返回的已删除 id，未返回时为空
+     */
+    @Nullable
+    private List<String> toDeletedIds(Response response) throws OssException {
+        Object data = checkResult(response, Result.class).getData();
+        if (!(data instanceof List)) {
+            return null;
+        }
+        List<String> ids = new ArrayList<>(((List<?>) data).size());
+        for (Object id : (List<?>) data) {
+            ids.add(toId(id));
+        }
+        return ids;
+    }
+
+    /**
+     * 数字 id 反序列化为 Double，整数去掉 ".0" 后与请求的 id 比较
+     */
+    private static String toId(Object id) {
+        if (id instanceof Number) {
+            double value = ((Number) id).doubleValue();
+            if (value == Math.rint(value) && !Double.isInfinite(value)) {
+                return String.valueOf(((Number) id).longValue());
+            }
+        }
+        return String.valueOf(id);
+    }
+
+    private boolean toSuccess(Response response) throws OssException {
+        checkResult(response, Result.class);
+        return true;
+    }
+
+    private byte[] toObjectData(Response response) throws OssException {
+        if (response.isSuccessful() && response.getContentType().startsWith(Constants.DEFAULT_MIME)) {
+            return response.getBody();
+        }
+        checkResult(response, Result.class);
+        throw new OssException("unexpected content type:" + response.getContentType());
+    }
+
+    private String toTempAccessUrl(Response response) throws OssException {
+        Result<GenerateUrlWithSigned> result = checkResult(response, TEMP_URL_RESULT);
+        GenerateUrlWithSigned vo = result.getData();
+        return vo.getUrl() + "?" + vo.getSignature();
+    }
+
+    /**
+     * 解析链接并缓存，有效期从请求发出时刻计算
+     */
+    private ResponseHandler<String> tempAccessUrlSigned(String bucket, String objectPath, int timeout, long requestStart) {
+        return response -> {
+            String signed = toTempAccessUrl(response);
+            if (tempUrlCache != null) {
+                tempUrlCache.put(bucket, objectPath, timeout, signed, requestStart);
+            }
+            return signed;
+        };
+    }
+
+    private ObjectListing toObjectListing(Response response) throws OssException {
+        Result<ObjectListing> result = checkResult(response, LISTING_RESULT);
+        if (result.getData() == null) {
+            throw new OssException("empty result");
+        }
+        return result.getData();
+    }
+
+    private String objectUrl(String bucket, String fullObjectPath) {
+        if (fullObjectPath.startsWith("/")) {
+            throw new IllegalArgumentException("object full path not allow start with / ");
+        }
+        return String.format(config.getAddress() + UrlFactory.ObjectUrl.get_object.getUrl(), bucket, fullObjectPath);
+    }
+
+    private static boolean isObjectStream(Response response) {
+        return response.getBodyStream() != null && response.getContentType().startsWith(Constants.DEFAULT_MIME);
+    }
+
+    /**
+     * 读取对象失败，关闭响应流并取出错误信息
+     */
+    private OssException objectError(Response response) {
+        closeQuietly(response.getBodyStream());
+        Result<?> result = response.jsonToObject(Result.class);
+        String msg = result == null ? response.getMessage() : result.getMsg();
+        logger.error(errorIMsgTemp, response.getCode(), msg);
+        return new OssException(msg);
+    }
+
+    private static void closeQuietly(@Nullable Closeable in) {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            logger.warn("close stream fail, msg:{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 异步打开对象输入流，启用本地缓存时经磁盘缓存读取
+     */
+    private CompletableFuture<InputStream> getObjectStreamAsync(String bucket, String fullObjectPath, String url) {
+        if (objectCache != null) {
+            return getCachedObjectAsync(objectCache, bucket, fullObjectPath).thenApply(Channels::newInputStream);
+        }
+        StringMap header = auth.authorization(url);
+        String withTokenUrl = url + "?token=" + header.get(Auth.OSS_SDK_AUTH_HEAD_NAME);
+        CompletableFuture<InputStream> future = new CompletableFuture<>();
+        client.asyncGetStream(withTokenUrl, header, response -> {
+            if (isObjectStream(response)) {
+                future.complete(response.getBodyStream());
+            } else {
+                future.completeExceptionally(objectError(response));
+            }
+        });
+        return future;
+    }
+
     private Response get(String url) throws OssException {
         StringMap header = auth.authorization(url);
         logger.debug("request url:{}, header:{}", url, header.map());
@@ -266,9 +1241,31 @@ public final class ObjectManage {
         return client.get(withTokenUrl, header);
     }
 
+    private Response getStream(String url) throws OssException {
+        StringMap header = auth.authorization(url);
+        logger.debug("request url:{}, header:{}", url, header.map());
+        String withTokenUrl = url + "?token=" + header.get(Auth.OSS_SDK_AUTH_HEAD_NAME);
+        return client.getStream(withTokenUrl, header);
+    }
+
+    /**
+     * 签名包含 url 参数，签名仅放在请求头
+     */
+    private Response getJson(String url) throws OssException {
+        StringMap header = auth.authorization(url);
+        logger.debug("request url:{}, header:{}", url, header.map());
+        return client.get(url, header);
+    }
+
     private Response post(String url, StringMap params) throws OssException {
         StringMap header = auth.authorization(url);
         logger.debug("request url:{}, header:{}", url, header.map());
-        return client.post(url, params.jsonString(), header);
+        return client.postJson(url, params, header);
+    }
+
+    private <T> CompletableFuture<T> postAsync(String url, StringMap params, ResponseHandler<T> handler) {
+        StringMap header = auth.authorization(url);
+        logger.debug("request url:{}, header:{}", url, header.map());
+        return client.postJsonAsync(url, params, header, handler);
     }
 }
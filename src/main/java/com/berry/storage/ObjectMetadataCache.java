@@ -0,0 +1,153 @@
+package com.berry.storage;
+
+import com.berry.storage.dto.ObjectInfo;
+import com.berry.util.StringUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title ObjectMetadataCache
+ * Description 对象元数据缓存，按数量淘汰最久未使用项，写入后超过 TTL 失效；对象不存在的结果同样缓存
+ * <p>同一服务地址、相同缓存配置的 xxManage 共享一个缓存。上传、删除、修改权限在发送前与结束后（包括请求失败、超时）各失效一次；
+ * 每次失效递增 key 所在分段的版本号，查询开始后版本号变化的结果不写入，避免与写操作并发的查询覆盖新数据。
+ * 其他客户端的修改在 TTL 内不可见</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/25 10:30
+ */
+final class ObjectMetadataCache {
+
+    /**
+     * 值为弱引用，共享该缓存的 ObjectManage 全部回收后移除
+     */
+    private static final Cache<String, ObjectMetadataCache> CACHES = CacheBuilder.newBuilder().weakValues().build();
+
+    /**
+     * 版本号分段数，不同 key 落在同一分段时只会多丢弃一次写入，不影响正确性
+     */
+    private static final int STRIPES = 64;
+
+    private final Cache<String, Optional<ObjectInfo>> cache;
+    /**
+     * 各分段的失效版本号，与缓存写入一起由 this 保护
+     */
+    private final long[] versions = new long[STRIPES];
+
+    private ObjectMetadataCache(long maximumSize, long ttlSeconds) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 获取配置对应的缓存
+     *
+     * @param config 配置
+     * @return 缓存，未启用时为空
+     */
+    @Nullable
+    static ObjectMetadataCache get(Config config) {
+        if (config.getMetadataCacheSize() <= 0) {
+            return null;
+        }
+        long size = config.getMetadataCacheSize();
+        long ttl = config.getMetadataCacheTtl();
+        String key = config.getAddress() + "|" + size + "|" + ttl;
+        return CACHES.asMap().computeIfAbsent(key, k -> new ObjectMetadataCache(size, ttl));
+    }
+
+    /**
+     * @return 缓存的元数据，对象不存在时为 Optional.empty()；未缓存时为 null
+     */
+    @Nullable
+    @SuppressWarnings("OptionalAssignedToNull")
+    Optional<ObjectInfo> get(String bucket, String objectPath) {
+        return cache.getIfPresent(key(bucket, objectPath));
+    }
+
+    /**
+     * 查询发送前调用，写入结果时传回
+     *
+     * @return 当前版本号
+     */
+    synchronized long version(String bucket, String objectPath) {
+        return versions[stripe(key(bucket, objectPath))];
+    }
+
+    /**
+     * 缓存查询结果，查询开始后有过失效时丢弃
+     *
+     * @param info    元数据，对象不存在时为空
+     * @param version 查询发送前的 {@link #version(String, String)}
+     */
+    synchronized void put(String bucket, String objectPath, @Nullable ObjectInfo info, long version) {
+        String key = key(bucket, objectPath);
+        if (versions[stripe(key)] == version) {
+            cache.put(key, Optional.ofNullable(info));
+        }
+    }
+
+    /**
+     * 失效对象，写操作发送前调用
+     *
+     * @return 失效后的版本号，写操作结束时传给 {@link #written(String, String, ObjectInfo, long)}
+     */
+    synchronized long invalidate(String bucket, String objectPath) {
+        String key = key(bucket, objectPath);
+        cache.invalidate(key);
+        return ++versions[stripe(key)];
+    }
+
+    /**
+     * 写操作结束（包括失败）时再次失效，期间没有其他失效且返回了对象信息时缓存该信息
+     *
+     * @param info    写操作返回的对象信息，失败时为空
+     * @param version 发送前 {@link #invalidate(String, String)} 的返回值
+     */
+    synchronized void written(String bucket, String objectPath, @Nullable ObjectInfo info, long version) {
+        String key = key(bucket, objectPath);
+        int stripe = stripe(key);
+        boolean latest = versions[stripe] == version;
+        versions[stripe]++;
+        if (latest && info != null && info.getFileName() != null && key.equals(key(bucket, fullPath(info.getFilePath(), info.getFileName())))) {
+            cache.put(key, Optional.of(info));
+        } else {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * 失效 bucket 下全部对象，用于按 id 删除（无法得知路径）、bucket 权限变更与删除，发送前与结束后各调用一次
+     */
+    synchronized void invalidateBucket(String bucket) {
+        String prefix = bucket + "/";
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        for (int i = 0; i < STRIPES; i++) {
+            versions[i]++;
+        }
+    }
+
+    /**
+     * @param filePath 目录，可空，可以 '/' 开头或结尾
+     * @param fileName 文件名
+     * @return 对象全路径
+     */
+    static String fullPath(@Nullable String filePath, String fileName) {
+        String dir = filePath == null ? "" : StringUtils.trimSlash(filePath);
+        return dir.isEmpty() ? fileName : dir + "/" + fileName;
+    }
+
+    private static String key(String bucket, String objectPath) {
+        return bucket + "/" + StringUtils.trimSlash(objectPath);
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+}
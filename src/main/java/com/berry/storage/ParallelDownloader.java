@@ -0,0 +1,236 @@
+package com.berry.storage;
+
+import com.berry.common.Constants;
+import com.berry.common.OssException;
+import com.berry.http.HttpClient;
+import com.berry.http.Response;
+import com.berry.storage.dto.Result;
+import com.berry.util.IoUtil;
+import com.berry.util.StringMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Title ParallelDownloader
+ * Description 分片并发下载，按 Range 将对象切分为多个区间同时请求，
+ * 各区间直接写入目标文件对应位置
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/8 16:35
+ */
+final class ParallelDownloader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelDownloader.class);
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+    private static final int PARTIAL_CONTENT = 206;
+
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+
+    private static final int PRECONDITION_FAILED = 412;
+
+    private final HttpClient client;
+    private final long partSize;
+    private final int concurrency;
+
+    ParallelDownloader(HttpClient client, long partSize, int concurrency) {
+        if (partSize <= 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("partSize and concurrency must be positive");
+        }
+        this.client = client;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * 下载到本地文件
+     * <p>首个分片同步请求，以获取对象总大小与 ETag；服务端不支持 Range 时退化为单连接下载。
+     * 其余分片带 If-Match 请求，下载期间对象被覆盖（返回 412 或总大小变化）时下载失败</p>
+     *
+     * @param url    已签名的对象地址
+     * @param header 请求头
+     * @param target 本地文件，已存在时覆盖，失败时删除
+     * @return 对象大小
+     */
+    long download(String url, StringMap header, Path target) throws OssException {
+        boolean success = false;
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            FirstPart first = downloadFirst(url, header, channel);
+            long size = downloadRest(url, first.etag == null ? header : new StringMap().putAll(header).put("If-Match", first.etag),
+                    channel, first.written, first.total);
+            success = true;
+            return size;
+        } catch (OssException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new OssException(e.getMessage());
+        } finally {
+            if (!success) {
+                deleteQuietly(target);
+            }
+        }
+    }
+
+    /**
+     * 下载首个分片
+     *
+     * @return 首个分片，服务端未按 Range 响应时已写入完整对象
+     */
+    private FirstPart downloadFirst(String url, StringMap header, FileChannel channel) throws IOException {
+        Response response = client.getStream(url, rangeHeader(header, 0, partSize - 1));
+        if (response.getCode() == RANGE_NOT_SATISFIABLE) {
+            // 空对象
+            return new FirstPart(0, 0, null);
+        }
+        try (InputStream in = checkStream(response)) {
+            long written = IoUtil.copy(in, channel, 0);
+            if (response.getCode() != PARTIAL_CONTENT) {
+                return new FirstPart(written, written, null);
+            }
+            long[] range = contentRange(response);
+            if (range == null || range[0] != 0 || written != range[1] + 1) {
+                throw new OssException("unexpected content range:" + response.getHeaders().get("Content-Range"));
+            }
+            return new FirstPart(written, range[2], response.getHeaders().get("ETag"));
+        }
+    }
+
+    /**
+     * 并发下载剩余分片，同时进行的分片数不超过 concurrency
+     *
+     * @param header 请求头，首个分片返回 ETag 时带 If-Match
+     * @param from   剩余部分起始位置
+     * @param total  对象总大小
+     * @return 对象大小
+     */
+    private long downloadRest(String url, StringMap header, FileChannel channel, long from, long total) throws OssException {
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicReference<String> error = new AtomicReference<>();
+        for (long start = from; start < total && error.get() == null; start += partSize) {
+            long end = Math.min(start + partSize, total) - 1;
+            permits.acquireUninterruptibly();
+            final long partStart = start;
+            client.asyncGetStream(url, rangeHeader(header, start, end), response -> {
+                try (InputStream in = checkStream(response)) {
+                    long[] range = contentRange(response);
+                    if (range != null && range[2] != total) {
+                        throw new OssException("object modified during download, size:" + total + " -> " + range[2]);
+                    }
+                    if (response.getCode() != PARTIAL_CONTENT || range == null || range[0] != partStart || range[1] != end) {
+                        throw new OssException("unexpected content range:" + response.getHeaders().get("Content-Range"));
+                    }
+                    long written = IoUtil.copy(in, channel, partStart);
+                    if (written != end - partStart + 1) {
+                        throw new OssException("incomplete part, expect:" + (end - partStart + 1) + ", actual:" + written);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    logger.error("download part fail, range:{}-{}, msg:{}", partStart, end, e.getMessage());
+                    error.compareAndSet(null, String.valueOf(e.getMessage()));
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+        // 取回全部许可，即所有分片均已结束
+        permits.acquireUninterruptibly(concurrency);
+        if (error.get() != null) {
+            throw new OssException(error.get());
+        }
+        return total;
+    }
+
+    /**
+     * 校验响应，返回响应体流
+     */
+    private static InputStream checkStream(Response response) throws OssException {
+        if (response.getCode() == PRECONDITION_FAILED) {
+            // If-Match 不满足
+            throw new OssException("object modified during download");
+        }
+        InputStream in = response.getBodyStream();
+        if (in != null && response.getContentType().startsWith(Constants.DEFAULT_MIME)) {
+            return in;
+        }
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // 已失败，忽略关闭异常
+            }
+            throw new OssException("unexpected content type:" + response.getContentType());
+        }
+        if (response.getError() != null) {
+            throw new OssException(response.getError());
+        }
+        Result<?> result = response.jsonToObject(Result.class);
+        throw new OssException(result == null ? response.getMessage() : result.getMsg());
+    }
+
+    /**
+     * 解析 Content-Range: bytes start-end/total
+     *
+     * @return [start, end, total]，无法解析时为 null
+     */
+    private static long[] contentRange(Response response) {
+        String value = response.getHeaders().get("Content-Range");
+        if (value == null) {
+            return null;
+        }
+        Matcher matcher = CONTENT_RANGE.matcher(value.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new long[]{Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3))};
+    }
+
+    private static StringMap rangeHeader(StringMap header, long start, long end) {
+        return new StringMap().putAll(header).put("Range", "bytes=" + start + "-" + end);
+    }
+
+    /**
+     * 首个分片的下载结果
+     */
+    private static final class FirstPart {
+        /**
+         * 已写入字节数
+         */
+        private final long written;
+        /**
+         * 对象总大小
+         */
+        private final long total;
+        /**
+         * 对象 ETag，服务端未返回或未按 Range 响应时为空
+         */
+        @Nullable
+        private final String etag;
+
+        private FirstPart(long written, long total, @Nullable String etag) {
+            this.written = written;
+            this.total = total;
+            this.etag = etag;
+        }
+    }
+
+    private static void deleteQuietly(Path target) {
+        try {
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            logger.warn("delete incomplete file fail, path:{}, msg:{}", target, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.berry.storage;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title TempUrlCache
+ * Description 对象临时访问链接缓存，以 bucket、对象路径、有效时间为 key
+ * <p>链接在请求发出时刻 + 有效时间之前有效，剩余有效时间不足安全余量（有效时间的 1/10，至少 30 秒）后不再复用。
+ * 同一服务地址、同一密钥对、相同缓存大小的 ObjectManage 共享</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/30 10:20
+ */
+final class TempUrlCache {
+
+    /**
+     * 由 ObjectManage 持有，注册表只保留弱引用
+     */
+    private static final Cache<String, TempUrlCache> CACHES = CacheBuilder.newBuilder().weakValues().build();
+
+    /**
+     * 最小安全余量 单位秒
+     */
+    private static final long MIN_MARGIN_SECONDS = 30;
+
+    /**
+     * 服务端允许的最长有效时间 单位秒
+     */
+    private static final long MAX_TIMEOUT_SECONDS = 64800;
+
+    private final Cache<String, SignedUrl> cache;
+
+    private static final class SignedUrl {
+        private final String url;
+        /**
+         * 可复用截止时间，System.nanoTime()
+         */
+        private final long reuseUntil;
+
+        private SignedUrl(String url, long reuseUntil) {
+            this.url = url;
+            this.reuseUntil = reuseUntil;
+        }
+    }
+
+    private TempUrlCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(MAX_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 获取配置与密钥对应的缓存
+     *
+     * @param config   配置
+     * @param identity 密钥标识，不同密钥签出的链接不共享
+     * @return 缓存，未启用时为空
+     */
+    @Nullable
+    static TempUrlCache get(Config config, String identity) {
+        long size = config.getTempUrlCacheSize();
+        if (size <= 0) {
+            return null;
+        }
+        String key = config.getAddress() + "|" + size + "|" + identity;
+        return CACHES.asMap().computeIfAbsent(key, k -> new TempUrlCache(size));
+    }
+
+    /**
+     * @return 仍可复用的链接，未缓存或剩余有效时间不足时为空
+     */
+    @Nullable
+    String get(String bucket, String objectPath, int timeout) {
+        String key = key(bucket, objectPath, timeout);
+        SignedUrl signed = cache.getIfPresent(key);
+        if (signed == null) {
+            return null;
+        }
+        if (System.nanoTime() - signed.reuseUntil >= 0) {
+            cache.asMap().remove(key, signed);
+            return null;
+        }
+        return signed.url;
+    }
+
+    /**
+     * @param requestStart 请求发出时刻，System.nanoTime()
+     */
+    void put(String bucket, String objectPath, int timeout, String url, long requestStart) {
+        long margin = Math.max(MIN_MARGIN_SECONDS, timeout / 10);
+        if (timeout <= margin) {
+            return;
+        }
+        long reuseUntil = requestStart + TimeUnit.SECONDS.toNanos(timeout - margin);
+        cache.put(key(bucket, objectPath, timeout), new SignedUrl(url, reuseUntil));
+    }
+
+    private static String key(String bucket, String objectPath, int timeout) {
+        return bucket + "/" + objectPath + "|" + timeout;
+    }
+}
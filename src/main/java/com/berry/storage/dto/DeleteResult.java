@@ -0,0 +1,42 @@
+package com.berry.storage.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Berry_Cooper.
+ * @date 2019/9/28 10:20
+ * fileName：DeleteResult
+ * Use：批量删除结果，每个 id 只出现在其中一项
+ */
+@Data
+public class DeleteResult {
+
+    /**
+     * 已删除的对象或目录 id
+     */
+    private List<String> deleted = new ArrayList<>();
+
+    /**
+     * 服务端未删除的 id，一般为不存在或已被删除
+     */
+    private List<String> notFound = new ArrayList<>();
+
+    /**
+     * 所在批次请求失败的 id 与失败原因，可重试
+     */
+    private Map<String, String> failed = new LinkedHashMap<>();
+
+    /**
+     * @return 是否没有失败的批次
+     */
+    public boolean isSuccessful() {
+        return failed.isEmpty();
+    }
+}
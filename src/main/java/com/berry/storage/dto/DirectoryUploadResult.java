@@ -0,0 +1,57 @@
+package com.berry.storage.dto;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Berry_Cooper.
+ * @date 2019/9/29 10:10
+ * fileName：DirectoryUploadResult
+ * Use：目录上传结果
+ */
+@Data
+public class DirectoryUploadResult {
+
+    /**
+     * 上传成功的文件数
+     */
+    private int uploadedFiles;
+
+    /**
+     * 上传成功的文件总字节数
+     */
+    private long uploadedBytes;
+
+    /**
+     * 创建的目录数，已由子目录创建的父目录不重复创建
+     */
+    private int createdFolders;
+
+    /**
+     * 总耗时 单位毫秒
+     */
+    private long elapsedMillis;
+
+    /**
+     * 失败的本地文件（相对路径）或远程目录（以 '/' 结尾）与失败原因
+     */
+    private Map<String, String> failed = new LinkedHashMap<>();
+
+    /**
+     * @return 平均上传速度 单位字节/秒
+     */
+    public double getBytesPerSecond() {
+        return elapsedMillis <= 0 ? 0 : uploadedBytes * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * @return 是否全部成功
+     */
+    public boolean isSuccessful() {
+        return failed.isEmpty();
+    }
+}
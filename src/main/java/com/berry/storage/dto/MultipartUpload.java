@@ -0,0 +1,20 @@
+package com.berry.storage.dto;
+
+import lombok.Data;
+
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Berry_Cooper.
+ * @date 2019/9/10 11:20
+ * fileName：MultipartUpload
+ * Use：初始化分片上传响应
+ */
+@Data
+public class MultipartUpload {
+
+    /**
+     * 分片上传任务id，上传分片、合并分片时使用
+     */
+    private String uploadId;
+}
@@ -0,0 +1,32 @@
+package com.berry.storage.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Berry_Cooper.
+ * @date 2019/9/24 10:15
+ * fileName：ObjectListing
+ * Use：分页列出对象响应
+ */
+@Data
+public class ObjectListing {
+
+    /**
+     * 本页对象，按全路径排序
+     */
+    private List<ObjectInfo> objects;
+
+    /**
+     * 下一页起始标记，请求下一页时作为 marker 传入
+     */
+    private String nextMarker;
+
+    /**
+     * 是否还有下一页
+     */
+    private Boolean truncated;
+}
@@ -11,12 +11,12 @@ import lombok.Data;
  * Use：
  */
 @Data
-public class Result {
+public class Result<T> {
 
     private String code;
 
     private String msg;
 
-    private Object data;
+    private T data;
 
 }
@@ -56,13 +56,24 @@ public class UrlFactory {
         get_object("/ajax/bucket/file/%s/%s?Download=true", "获取对象(私有对象，需要临时口令，且限时访问；公开对象，直接访问，第一个 '%s' 为 bucket name 第二个 '%s' 为对象相对根路径的全路径，包含对象名)", "GET"),
         create("/ajax/bucket/create", "创建对象", "POST"),
         upload_byte("/ajax/bucket/upload_byte.json", "以字节数组格式创建对象，文件名必须", "POST"),
+        /**
+         * 接口由本 SDK 定义，仅在测试用模拟服务中实现与验证，服务端返回 404 时回退到 upload_byte
+         */
+        upload_octet("/ajax/bucket/upload_octet.json", "以二进制请求体创建对象，bucket、acl、filePath、fileName 通过 url 参数传递", "POST"),
         upload_base64("/ajax/bucket/upload_base64.json", "以base64字符串格式创建对象，文件名必须,无需后缀名", "POST"),
         create_folder("/ajax/bucket/create_folder.json", "新建目录，支持同事创建多级目录", "POST"),
         generate_url_with_signed("/ajax/bucket/generate_url_with_signed.json", "根据过期时间 生成对象临时访问url", "POST"),
         delete_objects("/ajax/bucket/delete_objects.json", "删除对象", "POST"),
         head_object("/ajax/bucket/head_object.json", "获取文件头部信息", "GET"),
         list_objects("/ajax/bucket/list_objects.json", "获取 Object 列表", "GET"),
-        set_object_acl("/ajax/bucket/set_object_acl.json", "更新对象读写权限", "POST");
+        set_object_acl("/ajax/bucket/set_object_acl.json", "更新对象读写权限", "POST"),
+        /**
+         * 分片上传，接口由本 SDK 定义，仅在测试用模拟服务中实现与验证
+         */
+        init_multipart_upload("/ajax/bucket/init_multipart_upload.json", "初始化分片上传，返回 uploadId", "POST"),
+        upload_part("/ajax/bucket/upload_part.json", "上传分片，请求体为分片二进制数据，uploadId 与 partNumber 通过 url 参数传递", "POST"),
+        complete_multipart_upload("/ajax/bucket/complete_multipart_upload.json", "合并分片，完成分片上传", "POST"),
+        abort_multipart_upload("/ajax/bucket/abort_multipart_upload.json", "取消分片上传，清除已上传分片", "POST");
 
         private String url;
         private String desc;
@@ -1,9 +1,13 @@
 package com.berry.util;
 
 import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.SecretKeySpec;
-import java.net.URI;
 import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
@@ -33,9 +37,26 @@ public final class Auth {
     private final String accessKeyId;
     private final SecretKeySpec secretKeySpec;
 
+    /**
+     * 已初始化的 Mac 原型，各线程克隆使用，避免每次签名重新查找算法、初始化密钥
+     */
+    private final Mac prototype;
+
+    /**
+     * 每个线程一个签名器，Mac 与缓冲区在线程内复用
+     */
+    private final ThreadLocal<Signer> signer = ThreadLocal.withInitial(Signer::new);
+
+    /**
+     * 虚拟线程使用的签名器池，虚拟线程数量多、生命周期短，按线程创建签名器开销大。
+     * 签名不阻塞，同时使用的签名器数一般不超过载体线程数，即 CPU 核数；池满时归还的签名器直接丢弃
+     */
+    private final Queue<Signer> virtualSigners = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
     private Auth(String accessKeyId, SecretKeySpec secretKeySpec) {
         this.accessKeyId = accessKeyId;
         this.secretKeySpec = secretKeySpec;
+        this.prototype = newMac();
     }
 
     public static Auth create(String accessKeyId, String accessKeySecret) {
@@ -48,12 +69,12 @@ public final class Auth {
     }
 
     public StringMap authorization(String url) {
-        String authorization = SDK_REQUEST_TOKEN_PREFIX + signRequest(url);
+        String authorization = signRequest(url);
         return new StringMap().put(OSS_SDK_AUTH_HEAD_NAME, authorization);
     }
 
     public String getSign(String url) {
-        return SDK_REQUEST_TOKEN_PREFIX + signRequest(url);
+        return signRequest(url);
     }
 
     /**
@@ -74,7 +95,7 @@ public final class Auth {
         String encodeJson = Base64Util.encode(StringUtils.utf8Bytes(json));
 
         // 2.对 encodeJson 进行 mac 加密 再进行 base64 编码 得到 encodedSign
-        Mac mac = this.createMac();
+        Mac mac = signer.get().mac;
         String encodedSign = Base64Util.encode(mac.doFinal(StringUtils.utf8Bytes(encodeJson)));
 
         // 3.拼接 accessKeyId encodedSign 和 encodeJson，用英文冒号隔开
@@ -82,33 +103,28 @@ public final class Auth {
     }
 
     /**
-     * 生成HTTP请求签名字符串
+     * 生成HTTP请求签名字符串 OSS-accessKeyId:sign
+     * <p>签名内容为 path[?query]\n，直接从 url 中截取，不创建 URI 及中间字节数组</p>
      *
      * @param urlString url
      * @return 签名字符串
      */
     private String signRequest(String urlString) {
-        URI uri = URI.create(urlString);
-        String path = uri.getRawPath();
-        String query = uri.getRawQuery();
-
-        Mac mac = createMac();
-
-        mac.update(StringUtils.utf8Bytes(path));
-
-        if (query != null && query.length() != 0) {
-            mac.update((byte) ('?'));
-            mac.update(StringUtils.utf8Bytes(query));
+        if (!VirtualThreads.isVirtual(Thread.currentThread())) {
+            return signer.get().sign(urlString);
+        }
+        Signer pooled = virtualSigners.poll();
+        if (pooled == null) {
+            pooled = new Signer();
+        }
+        try {
+            return pooled.sign(urlString);
+        } finally {
+            virtualSigners.offer(pooled);
         }
-        mac.update((byte) '\n');
-
-        String digest = Base64Util.encode(mac.doFinal());
-
-        return this.accessKeyId + ":" + digest;
     }
 
-
-    private Mac createMac() {
+    private Mac newMac() {
         Mac mac;
         try {
             mac = Mac.getInstance(MAC_ALGORITHM);
@@ -119,4 +135,114 @@ public final class Auth {
         }
         return mac;
     }
+
+    private Mac createMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            // 部分 provider 不支持克隆
+            return newMac();
+        }
+    }
+
+    /**
+     * 线程内复用的签名器，签名过程中除结果字符串外不产生新对象
+     */
+    private final class Signer {
+        private final Mac mac = createMac();
+        private final byte[] digest = new byte[mac.getMacLength()];
+        private final byte[] encoded = new byte[(digest.length + 2) / 3 * 4];
+        private byte[] buffer = new byte[256];
+        private int length;
+
+        private String sign(String url) {
+            int pathStart = pathStart(url);
+            int queryStart = url.indexOf('?', pathStart);
+            int fragmentStart = url.indexOf('#', pathStart);
+            int end = fragmentStart < 0 ? url.length() : fragmentStart;
+            if (queryStart > end) {
+                queryStart = -1;
+            }
+            length = 0;
+            if (queryStart < 0) {
+                append(url, pathStart, end);
+            } else {
+                append(url, pathStart, queryStart);
+                // 空 query 不参与签名
+                if (queryStart + 1 < end) {
+                    append(url, queryStart, end);
+                }
+            }
+            ensureCapacity(1);
+            buffer[length++] = '\n';
+            mac.update(buffer, 0, length);
+            try {
+                mac.doFinal(digest, 0);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException(e);
+            }
+            int n = Base64.getEncoder().encode(digest, encoded);
+            StringBuilder token = new StringBuilder(SDK_REQUEST_TOKEN_PREFIX.length() + accessKeyId.length() + 1 + n)
+                    .append(SDK_REQUEST_TOKEN_PREFIX)
+                    .append(accessKeyId)
+                    .append(':');
+            for (int i = 0; i < n; i++) {
+                token.append((char) encoded[i]);
+            }
+            return token.toString();
+        }
+
+        /**
+         * 按 UTF-8 编码写入缓冲区
+         */
+        private void append(String s, int from, int to) {
+            for (int i = from; i < to; i++) {
+                char c = s.charAt(i);
+                ensureCapacity(4);
+                if (c < 0x80) {
+                    buffer[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[length++] = (byte) (0xc0 | c >> 6);
+                    buffer[length++] = (byte) (0x80 | c & 0x3f);
+                } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buffer[length++] = (byte) (0xf0 | cp >> 18);
+                    buffer[length++] = (byte) (0x80 | cp >> 12 & 0x3f);
+                    buffer[length++] = (byte) (0x80 | cp >> 6 & 0x3f);
+                    buffer[length++] = (byte) (0x80 | cp & 0x3f);
+                } else if (Character.isSurrogate(c)) {
+                    // 与 String.getBytes(UTF_8) 一致，孤立代理字符替换为 '?'
+                    buffer[length++] = '?';
+                } else {
+                    buffer[length++] = (byte) (0xe0 | c >> 12);
+                    buffer[length++] = (byte) (0x80 | c >> 6 & 0x3f);
+                    buffer[length++] = (byte) (0x80 | c & 0x3f);
+                }
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+    }
+
+    /**
+     * path 起始位置：scheme://authority 之后，无 scheme 时为 0
+     */
+    private static int pathStart(String url) {
+        int scheme = url.indexOf("://");
+        if (scheme < 0) {
+            return 0;
+        }
+        int authorityStart = scheme + 3;
+        for (int i = authorityStart; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                return i;
+            }
+        }
+        return url.length();
+    }
 }
@@ -1,5 +1,7 @@
 package com.berry.util;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Created with IntelliJ IDEA.
  *
@@ -17,7 +19,7 @@ public final class Base64Util {
      * @return 加密字符串
      */
     public static String encode(byte[] data) {
-        return new String(java.util.Base64.getEncoder().encode(data));
+        return new String(java.util.Base64.getEncoder().encode(data), StandardCharsets.ISO_8859_1);
     }
 
     /**
@@ -27,7 +29,7 @@ public final class Base64Util {
      * @return 解密后字节数组
      */
     public static byte[] decode(String encodeStr) {
-        return java.util.Base64.getDecoder().decode(encodeStr.getBytes());
+        return java.util.Base64.getDecoder().decode(encodeStr.getBytes(StandardCharsets.ISO_8859_1));
     }
 
 }
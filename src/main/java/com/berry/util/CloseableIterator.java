@@ -0,0 +1,23 @@
+package com.berry.util;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Title CloseableIterator
+ * Description 可提前结束的迭代器，未遍历完时关闭以释放后台请求等资源
+ * <p>可用于 try-with-resources；遍历完毕后关闭无副作用，可重复关闭</p>
+ *
+ * @param <T> 元素类型
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/10/16 10:20
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Closeable {
+
+    /**
+     * 结束遍历，之后 hasNext 返回 false
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,38 @@
+package com.berry.util;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+
+/**
+ * Title GsonCodec
+ * Description 基于 Gson 的默认编解码器，Gson 实例线程安全，按需共享
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/18 15:32
+ */
+public final class GsonCodec implements JsonCodec {
+
+    private final Gson gson;
+
+    public GsonCodec(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public void write(Object value, Writer writer) throws IOException {
+        JsonWriter jsonWriter = gson.newJsonWriter(writer);
+        gson.toJson(value, value.getClass(), jsonWriter);
+        jsonWriter.flush();
+    }
+
+    @Override
+    public <T> T read(Reader reader, Type type) {
+        return gson.fromJson(reader, type);
+    }
+}
@@ -0,0 +1,114 @@
+package com.berry.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Created with IntelliJ IDEA.
+ *
+ * @author Berry_Cooper.
+ * @date 2019-09-07 14:20
+ * fileName：IoUtil
+ * Use：流拷贝，固定大小缓冲区，内存占用与数据大小无关
+ */
+public final class IoUtil {
+
+    /**
+     * 拷贝缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private IoUtil() {
+    }
+
+    /**
+     * 输入流写入通道
+     *
+     * @param in     输入流
+     * @param target 目标通道
+     * @return 写入字节数
+     */
+    public static long copy(InputStream in, WritableByteChannel target) throws IOException {
+        ReadableByteChannel source = Channels.newChannel(in);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long total = 0;
+        while (source.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                total += target.write(buffer);
+            }
+            buffer.clear();
+        }
+        return total;
+    }
+
+    /**
+     * 输入流写入文件指定位置，不改变文件通道自身的 position，可并发写入文件的不同区间
+     *
+     * @param in       输入流
+     * @param target   目标文件通道
+     * @param position 起始位置
+     * @return 写入字节数
+     */
+    public static long copy(InputStream in, FileChannel target, long position) throws IOException {
+        ReadableByteChannel source = Channels.newChannel(in);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long pos = position;
+        while (source.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                pos += target.write(buffer, pos);
+            }
+            buffer.clear();
+        }
+        return pos - position;
+    }
+
+    /**
+     * 文件通道从当前位置起全部写入目标通道，由 {@link FileChannel#transferTo} 完成，
+     * 目标为 socket 或文件时不经过用户态缓冲区
+     *
+     * @param source 源文件通道
+     * @param target 目标通道
+     * @return 写入字节数
+     */
+    public static long transfer(FileChannel source, WritableByteChannel target) throws IOException {
+        long position = source.position();
+        long size = source.size();
+        long pos = position;
+        while (pos < size) {
+            long written = source.transferTo(pos, size - pos, target);
+            if (written <= 0 && source.size() <= pos) {
+                break;
+            }
+            pos += written;
+        }
+        source.position(pos);
+        return pos - position;
+    }
+
+    /**
+     * 读取文件通道全部内容
+     *
+     * @param source 源文件通道，不超过 2G
+     * @return 内容
+     */
+    public static byte[] toByteArray(FileChannel source) throws IOException {
+        long size = source.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("file too large: " + size);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer, buffer.position()) < 0) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+        return buffer.array();
+    }
+}
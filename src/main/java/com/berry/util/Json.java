@@ -6,35 +6,90 @@ import com.google.gson.JsonElement;
 import com.google.gson.reflect.TypeToken;
 
 import java.lang.reflect.Type;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 
 public final class Json {
+
+    /**
+     * Gson 线程安全，全局共享，不再每次调用时创建
+     */
+    private static final Gson GSON = new Gson();
+
+    private static final Gson NULLS_GSON = new GsonBuilder().serializeNulls().create();
+
+    // CHECKSTYLE:OFF
+    private static final Type MAP_TYPE = new TypeToken<Map<String, Object>>() {
+    }.getType();
+    // CHECKSTYLE:ON
+
+    private static volatile JsonCodec codec = loadCodec();
+
     private Json() {
     }
 
+    /**
+     * 请求体、响应体使用的编解码器
+     */
+    public static JsonCodec codec() {
+        return codec;
+    }
+
+    /**
+     * 替换编解码器，对之后发出的请求生效
+     *
+     * @param jsonCodec 编解码器，为空时恢复默认
+     */
+    public static void setCodec(JsonCodec jsonCodec) {
+        codec = jsonCodec == null ? new GsonCodec(GSON) : jsonCodec;
+    }
+
+    /**
+     * 构造泛型类型，如 type(Result.class, ObjectInfo.class) 即 Result&lt;ObjectInfo&gt;
+     *
+     * @param rawType       原始类型
+     * @param typeArguments 类型参数
+     * @return 泛型类型
+     */
+    public static Type type(Type rawType, Type... typeArguments) {
+        return TypeToken.getParameterized(rawType, typeArguments).getType();
+    }
+
     public static String encode(StringMap map) {
-        return new Gson().toJson(map.map());
+        return GSON.toJson(map.map());
     }
 
     public static String encode(Object obj) {
-        return new GsonBuilder().serializeNulls().create().toJson(obj);
+        return NULLS_GSON.toJson(obj);
     }
 
     public static <T> T decode(String json, Class<T> classOfT) {
-        return new Gson().fromJson(json, classOfT);
+        return GSON.fromJson(json, classOfT);
     }
 
     public static <T> T decode(JsonElement jsonElement, Class<T> clazz) {
-        Gson gson = new Gson();
-        return gson.fromJson(jsonElement, clazz);
+        return GSON.fromJson(jsonElement, clazz);
     }
 
     public static StringMap decode(String json) {
-        // CHECKSTYLE:OFF
-        Type t = new TypeToken<Map<String, Object>>() {
-        }.getType();
-        // CHECKSTYLE:ON
-        Map<String, Object> x = new Gson().fromJson(json, t);
+        Map<String, Object> x = GSON.fromJson(json, MAP_TYPE);
         return new StringMap(x);
     }
+
+    /**
+     * 优先使用 ServiceLoader 发现的第一个实现，否则使用 Gson
+     */
+    private static JsonCodec loadCodec() {
+        try {
+            Iterator<JsonCodec> it = ServiceLoader.load(JsonCodec.class).iterator();
+            if (it.hasNext()) {
+                return it.next();
+            }
+        } catch (ServiceConfigurationError e) {
+            // 声明的实现无法加载，使用默认实现
+        }
+        return new GsonCodec(GSON);
+    }
 }
@@ -0,0 +1,53 @@
+package com.berry.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+
+/**
+ * Title JsonCodec
+ * Description 请求体序列化、响应体反序列化所用的 JSON 编解码器，实现须线程安全
+ * <p>默认基于 Gson，可通过 {@link Json#setCodec(JsonCodec)} 替换，
+ * 或在 META-INF/services/com.berry.util.JsonCodec 中声明实现类，由 ServiceLoader 加载</p>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/18 15:20
+ */
+public interface JsonCodec {
+
+    /**
+     * 序列化写出，不关闭 writer
+     *
+     * @param value  对象
+     * @param writer 输出
+     */
+    void write(Object value, Writer writer) throws IOException;
+
+    /**
+     * 反序列化
+     *
+     * @param reader 输入
+     * @param type   目标类型，可为泛型类型，见 {@link Json#type(Type, Type...)}
+     * @return 对象
+     */
+    <T> T read(Reader reader, Type type);
+
+    default String encode(Object value) {
+        StringWriter writer = new StringWriter();
+        try {
+            write(value, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    default <T> T decode(String json, Type type) {
+        return read(new StringReader(json), type);
+    }
+}
@@ -3,6 +3,8 @@ package com.berry.util;
 
 import com.berry.common.Constants;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +40,30 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
         return buff;
     }
 
+    /**
+     * 同 {@link #parseUrlParams(StringMap)}，参数值按 UTF-8 进行 url 编码
+     *
+     * @param paramsMap map
+     * @return urlStr
+     */
+    public static String encodeUrlParams(StringMap paramsMap) {
+        StringMap encoded = new StringMap();
+        for (Map.Entry<String, Object> item : paramsMap.entrySet()) {
+            if (item.getValue() != null) {
+                encoded.put(item.getKey(), urlEncode(item.getValue().toString()));
+            }
+        }
+        return parseUrlParams(encoded);
+    }
+
+    public static String urlEncode(String data) {
+        try {
+            return URLEncoder.encode(data, Constants.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public static byte[] utf8Bytes(String data) {
         return data.getBytes(Constants.UTF_8);
     }
@@ -46,4 +72,22 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
         return new String(data, Constants.UTF_8);
     }
 
+    /**
+     * 去掉首尾的 '/'，用于对象路径、目录
+     *
+     * @param path 路径
+     * @return 不以 '/' 开头或结尾的路径
+     */
+    public static String trimSlash(String path) {
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return path.substring(start, end);
+    }
+
 }
@@ -0,0 +1,1058 @@
+package com.berry;
+
+import com.alibaba.fastjson.JSONArray;
+import com.berry.common.Constants;
+import com.berry.common.OssException;
+import com.berry.emulator.OssEmulator;
+import com.berry.http.Histogram;
+import com.berry.http.HttpMetrics;
+import com.berry.http.HttpProtocol;
+import com.berry.http.MetricsSink;
+import com.berry.http.RetryPolicy;
+import com.berry.storage.BucketManage;
+import com.berry.storage.Config;
+import com.berry.storage.ObjectManage;
+import com.berry.storage.dto.BucketInfo;
+import com.berry.storage.dto.DeleteResult;
+import com.berry.storage.dto.DirectoryUploadResult;
+import com.berry.storage.dto.ObjectInfo;
+import com.berry.storage.dto.ObjectListing;
+import com.berry.storage.url.UrlFactory;
+import com.berry.util.Auth;
+import com.berry.util.CloseableIterator;
+import com.berry.util.VirtualThreads;
+import com.google.common.collect.ImmutableMap;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Title EmulatorTest
+ * Description 基于进程内模拟服务的离线测试，无需访问真实服务
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/20 16:40
+ */
+public class EmulatorTest {
+
+    private static final String accessKeyId = "du88vKhV3hVnkiO451uY.I";
+    private static final String accessKeySecret = "tj1A2vc4t7kna2ACXQsnRcL5KaSp0wr";
+    private static final String BUCKET = "emulator";
+
+    private OssEmulator emulator;
+    private BucketManage bucketManage;
+    private ObjectManage objectManage;
+
+    @Before
+    public void setUp() throws IOException {
+        emulator = OssEmulator.builder().credential(accessKeyId, accessKeySecret).bucket(BUCKET).start();
+        Config config = new Config(emulator.getHost());
+        bucketManage = new BucketManage(Auth.create(accessKeyId, accessKeySecret), config);
+        objectManage = new ObjectManage(Auth.create(accessKeyId, accessKeySecret), config);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        emulator.close();
+    }
+
+    @Test
+    public void bucketTest() throws OssException {
+        assertTrue(bucketManage.createBucket("emulator-new", "oss-emulator", "PUBLIC_READ"));
+        assertFalse(bucketManage.createBucket("emulator-new", "oss-emulator", "PUBLIC_READ"));
+        List<BucketInfo> buckets = bucketManage.queryBucket(null);
+        assertEquals(2, buckets.size());
+        assertTrue(bucketManage.updateAcl("emulator-new", "PRIVATE"));
+        assertEquals("PRIVATE", bucketManage.queryBucket("emulator-new").get(0).getAcl());
+        assertTrue(bucketManage.delete("emulator-new"));
+        assertEquals(1, bucketManage.queryBucket(null).size());
+    }
+
+    @Test
+    public void uploadAndGetObjectTest() throws OssException {
+        byte[] data = "hello emulator 你好".getBytes(StandardCharsets.UTF_8);
+        ObjectInfo octet = objectManage.upload(BUCKET, "PRIVATE", "/docs", "文档.txt", data);
+        assertEquals("/docs", octet.getFilePath());
+        assertEquals(data.length, octet.getSize().intValue());
+        assertArrayEquals(data, objectManage.getObject(BUCKET, "docs/文档.txt"));
+
+        String base64 = java.util.Base64.getEncoder().encodeToString(data);
+        objectManage.upload(BUCKET, "PRIVATE", null, "base64.txt", "data:text/plain;base64," + base64);
+        assertArrayEquals(data, objectManage.getObject(BUCKET, "base64.txt"));
+    }
+
+    @Test
+    public void octetFallbackTest() throws Exception {
+        // 服务端未实现二进制请求体上传接口时回退到字节数组上传，此后直接使用字节数组上传
+        try (MockWebServer server = new MockWebServer()) {
+            String json = "application/json;charset=UTF-8";
+            String info = "{\"code\":\"200\",\"msg\":\"SUCCESS\",\"data\":{\"id\":\"1\",\"fileName\":\"a.bin\",\"size\":2}}";
+            server.enqueue(new MockResponse().setResponseCode(404));
+            server.enqueue(new MockResponse().setHeader("Content-Type", json).setBody(info));
+            server.enqueue(new MockResponse().setHeader("Content-Type", json).setBody(info));
+            server.start();
+            ObjectManage fallback = objectManage(server, config -> {
+            });
+
+            byte[] data = {1, 2, 3, 4};
+            assertEquals(2, fallback.upload(BUCKET, "PRIVATE", null, "a.bin", data, 1, 2).getSize().intValue());
+            assertEquals(2, fallback.uploadAsync(BUCKET, "PRIVATE", null, "a.bin", data, 1, 2).join().getSize().intValue());
+
+            assertTrue(server.takeRequest().getPath().startsWith(UrlFactory.ObjectUrl.upload_octet.getUrl()));
+            for (int i = 0; i < 2; i++) {
+                RecordedRequest request = server.takeRequest();
+                assertEquals(UrlFactory.ObjectUrl.upload_byte.getUrl(), request.getPath());
+                assertTrue(request.getBody().readUtf8().contains("[2,3]"));
+            }
+        }
+    }
+
+    @Test
+    public void uploadFileTest() throws OssException, IOException {
+        Path file = Files.createTempFile("emulator", ".txt");
+        try {
+            Files.write(file, "file content".getBytes(StandardCharsets.UTF_8));
+            JSONArray result = objectManage.upload(BUCKET, "PRIVATE", "files", file.toFile());
+            assertEquals(1, result.size());
+            assertArrayEquals(Files.readAllBytes(file), objectManage.getObject(BUCKET, "files/" + file.getFileName()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void multipartUploadAndDownloadTest() throws OssException, IOException {
+        byte[] data = new byte[12 * 1024 * 1024 + 123];
+        new Random(7).nextBytes(data);
+        Path source = Files.createTempFile("emulator", ".bin");
+        Path target = Files.createTempFile("emulator", ".download");
+        try {
+            Files.write(source, data);
+            File file = source.toFile();
+            ObjectInfo info = objectManage.multipartUpload(BUCKET, "PRIVATE", "big", file);
+            assertEquals(data.length, info.getSize().intValue());
+            assertEquals(data.length, objectManage.download(BUCKET, "big/" + file.getName(), target));
+            assertArrayEquals(data, Files.readAllBytes(target));
+        } finally {
+            Files.delete(source);
+            Files.delete(target);
+        }
+    }
+
+    @Test
+    public void multipartMissingEtagTest() throws IOException {
+        // 分片响应没有 etag 时视为分片失败，取消上传而不是带空 etag 合并
+        List<String> paths = Collections.synchronizedList(new ArrayList<>());
+        Path source = Files.createTempFile("emulator", ".bin");
+        try (MockWebServer server = new MockWebServer()) {
+            server.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    String path = request.getPath();
+                    paths.add(path.contains("?") ? path.substring(0, path.indexOf('?')) : path);
+                    String data = path.startsWith(UrlFactory.ObjectUrl.init_multipart_upload.getUrl()) ? ",\"data\":{\"uploadId\":\"u1\"}" : "";
+                    return new MockResponse().setHeader("Content-Type", "application/json;charset=UTF-8")
+                            .setBody("{\"code\":\"200\",\"msg\":\"SUCCESS\"" + data + "}");
+                }
+            });
+            server.start();
+            Files.write(source, new byte[]{1, 2, 3});
+            try {
+                objectManage(server, config -> {
+                }).multipartUpload(BUCKET, "PRIVATE", null, source.toFile());
+                fail("upload should fail without part etag");
+            } catch (OssException expected) {
+                // ignore
+            }
+            assertEquals(Arrays.asList(UrlFactory.ObjectUrl.init_multipart_upload.getUrl(), UrlFactory.ObjectUrl.upload_part.getUrl(),
+                    UrlFactory.ObjectUrl.abort_multipart_upload.getUrl()), paths);
+        } finally {
+            Files.delete(source);
+        }
+    }
+
+    @Test
+    public void downloadOverwrittenTest() throws IOException {
+        byte[] data = new byte[3 * 64 * 1024];
+        new Random(8).nextBytes(data);
+        byte[] replaced = data.clone();
+        replaced[0]++;
+        objectManage.upload(BUCKET, "PRIVATE", null, "overwritten.bin", data, 0, data.length);
+        // 首个分片之后的 Range 请求到达时覆盖对象，大小不变
+        AtomicBoolean overwritten = new AtomicBoolean();
+        emulator.onRequest(exchange -> {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range != null && !range.startsWith("bytes=0-") && overwritten.compareAndSet(false, true)) {
+                try {
+                    objectManage.upload(BUCKET, "PRIVATE", null, "overwritten.bin", replaced, 0, replaced.length);
+                } catch (OssException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        ObjectManage parallel = objectManage(config -> {
+            config.setDownloadPartSize(64 * 1024);
+            config.setDownloadConcurrency(1);
+        });
+        Path target = Files.createTempFile("emulator", ".download");
+        try {
+            parallel.download(BUCKET, "overwritten.bin", target);
+            fail("download should fail after the object is overwritten");
+        } catch (OssException e) {
+            assertTrue(e.getMessage().contains("modified"));
+        }
+        assertTrue(overwritten.get());
+        assertFalse(Files.exists(target));
+
+        emulator.onRequest(null);
+        assertEquals(replaced.length, parallel.download(BUCKET, "overwritten.bin", target));
+        assertArrayEquals(replaced, Files.readAllBytes(target));
+        Files.delete(target);
+    }
+
+    @Test
+    public void folderAndRemoveTest() throws OssException {
+        assertTrue(objectManage.createFolder(BUCKET, "a/b/c"));
+        ObjectInfo info = objectManage.upload(BUCKET, "PRIVATE", "a/b", "x.txt", new byte[]{1, 2, 3});
+        assertTrue(objectManage.removeObjectOrFolder(BUCKET, info.getId()));
+        try {
+            objectManage.getObject(BUCKET, "a/b/x.txt");
+            fail("object should be removed");
+        } catch (OssException expected) {
+            // ignore
+        }
+    }
+
+    @Test
+    public void folderNameTest() throws OssException {
+        assertTrue(objectManage.createFolder(BUCKET, "合法/目录"));
+        for (String folder : Arrays.asList("/a", "a/", "a//b", "a.b")) {
+            try {
+                objectManage.createFolder(BUCKET, folder);
+                fail("folder name should be rejected: " + folder);
+            } catch (IllegalArgumentException expected) {
+                // ignore
+            }
+        }
+    }
+
+    @Test
+    public void folderNameCheckedBeforeRequestTest() {
+        // 只用到基线已有的接口，不依赖模拟服务：不合法的目录名在发送前拒绝，合法的目录名通过校验后因连接失败抛出 OssException
+        ObjectManage offline = new ObjectManage(Auth.create(accessKeyId, accessKeySecret), new Config("127.0.0.1:1"));
+        try {
+            offline.createFolder(BUCKET, "a/b");
+            fail("unreachable server");
+        } catch (OssException expected) {
+            // ignore
+        }
+        try {
+            offline.createFolder(BUCKET, "a//b");
+            fail("folder name should be rejected");
+        } catch (IllegalArgumentException | OssException e) {
+            assertTrue(e instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void tempAccessUrlTest() throws OssException, IOException {
+        byte[] data = {9, 8, 7};
+        objectManage.upload(BUCKET, "PRIVATE", null, "temp.bin", data);
+        String url = objectManage.getObjectTempAccessUrlWithExpired(BUCKET, "temp.bin", 60);
+        OkHttpClient client = new OkHttpClient();
+        try (Response response = client.newCall(new Request.Builder().url(url).build()).execute()) {
+            assertEquals(200, response.code());
+            assertArrayEquals(data, response.body().bytes());
+        }
+        String unsigned = url.substring(0, url.indexOf('?'));
+        try (Response response = client.newCall(new Request.Builder().url(unsigned).build()).execute()) {
+            assertEquals(403, response.code());
+        }
+    }
+
+    @Test
+    public void tempAccessUrlBatchTest() throws OssException, IOException {
+        ObjectManage cached = objectManage(config -> config.setTempUrlCacheSize(100));
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            cached.upload(BUCKET, "PRIVATE", "gallery", i + ".jpg", new byte[]{(byte) i});
+            paths.add("gallery/" + i + ".jpg");
+        }
+        paths.add(paths.get(0));
+
+        long requests = emulator.getRequestCount();
+        Map<String, String> urls = cached.getObjectTempAccessUrls(BUCKET, paths, 600);
+        assertEquals(20, urls.size());
+        assertEquals(requests + 20, emulator.getRequestCount());
+        assertEquals(urls, cached.getObjectTempAccessUrlsAsync(BUCKET, paths, 600).join());
+        assertEquals(urls.get("gallery/3.jpg"), cached.getObjectTempAccessUrlWithExpired(BUCKET, "gallery/3.jpg", 600));
+        assertEquals(requests + 20, emulator.getRequestCount());
+
+        try (Response response = new OkHttpClient().newCall(new Request.Builder().url(urls.get("gallery/5.jpg")).build()).execute()) {
+            assertEquals(200, response.code());
+            assertArrayEquals(new byte[]{5}, response.body().bytes());
+        }
+        try {
+            cached.getObjectTempAccessUrls(BUCKET, Arrays.asList("gallery/1.jpg", "gallery/missing.jpg"), 600);
+            fail();
+        } catch (OssException expected) {
+            // 任一对象失败时整体失败
+        }
+    }
+
+    @Test
+    public void badSignatureTest() {
+        ObjectManage wrongKey = new ObjectManage(Auth.create(accessKeyId, "wrong"), new Config(emulator.getHost()));
+        try {
+            wrongKey.upload(BUCKET, "PRIVATE", null, "x.bin", new byte[]{1});
+            fail("signature should be rejected");
+        } catch (OssException expected) {
+            // ignore
+        }
+        try {
+            objectManage.getObject(BUCKET, "x.bin");
+            fail("object should not exist");
+        } catch (OssException expected) {
+            // ignore
+        }
+    }
+
+    @Test
+    public void metricsTest() throws OssException {
+        HttpMetrics metrics = new HttpMetrics();
+        ObjectManage metered = objectManage(config -> config.setMetrics(metrics));
+        for (int i = 0; i < 3; i++) {
+            metered.upload(BUCKET, "PRIVATE", null, "metrics.bin", new byte[]{1, 2, 3});
+        }
+        metered.createFolder(BUCKET, "metrics");
+
+        CapturingSink sink = CapturingSink.export(metrics);
+        assertEquals(3, sink.count("oss.http.call", ImmutableMap.of("endpoint", "upload_byte", "bucket", BUCKET, "status", "200")));
+        assertEquals(1, sink.count("oss.http.ttfb", ImmutableMap.of("endpoint", "create_folder", "bucket", BUCKET, "status", "200")));
+        assertEquals(4, sink.gauge("oss.http.pool.acquired", Collections.emptyMap()), 0);
+        assertTrue(sink.gauge("oss.http.pool.reuse_ratio", Collections.emptyMap()) > 0);
+    }
+
+    @Test
+    public void sharedMetricsTest() throws OssException {
+        // 两个配置共享统计实例，调度器不同，后添加的客户端不覆盖先前的调度器与并发限制
+        HttpMetrics metrics = new HttpMetrics();
+        ObjectManage adaptive = objectManage(config -> {
+            config.setMetrics(metrics);
+            config.setAdaptiveConcurrency(true);
+        });
+        ObjectManage plain = objectManage(config -> config.setMetrics(metrics));
+        adaptive.upload(BUCKET, "PRIVATE", null, "shared.bin", new byte[]{1, 2, 3});
+        plain.getObject(BUCKET, "shared.bin");
+
+        CapturingSink sink = CapturingSink.export(metrics);
+        assertEquals(1024 + 64, sink.gauge("oss.http.dispatcher.max_requests", Collections.emptyMap()), 0);
+        assertEquals(2, sink.gauge("oss.http.pool.acquired", Collections.emptyMap()), 0);
+        sink.gauge("oss.http.limiter.limit", Collections.singletonMap("host", emulator.getHost()));
+    }
+
+    @Test
+    public void listObjectsTest() throws OssException {
+        for (int i = 0; i < 25; i++) {
+            objectManage.upload(BUCKET, "PRIVATE", "list/" + (i % 2 == 0 ? "even" : "odd"), String.format("%02d.txt", i), new byte[]{(byte) i});
+        }
+        objectManage.upload(BUCKET, "PRIVATE", "other", "x.txt", new byte[]{1});
+
+        ObjectListing first = objectManage.listObjects(BUCKET, "list", null, 10);
+        assertEquals(10, first.getObjects().size());
+        assertTrue(first.getTruncated());
+
+        List<String> names = new ArrayList<>();
+        Iterator<ObjectInfo> iterator = objectManage.listAllObjects(BUCKET, "/list/", 7);
+        while (iterator.hasNext()) {
+            ObjectInfo info = iterator.next();
+            names.add(info.getFilePath() + "/" + info.getFileName());
+        }
+        assertEquals(25, names.size());
+        assertEquals("/list/even/00.txt", names.get(0));
+        assertEquals("/list/odd/23.txt", names.get(24));
+
+        // 提前结束，关闭后取消预取
+        CloseableIterator<ObjectInfo> partial = objectManage.listAllObjects(BUCKET, "/list/", 7);
+        try (CloseableIterator<ObjectInfo> closing = partial) {
+            assertEquals("00.txt", closing.next().getFileName());
+        }
+        assertFalse(partial.hasNext());
+
+        assertEquals(13, objectManage.streamObjects(BUCKET, "list/even").count());
+        assertEquals(26, objectManage.streamObjects(BUCKET, null).count());
+    }
+
+    @Test
+    public void headObjectCacheTest() throws OssException {
+        assertNull(objectManage.headObject(BUCKET, "meta/a.txt"));
+
+        ObjectManage cached = objectManage(config -> config.setMetadataCacheSize(100));
+        ObjectInfo uploaded = cached.upload(BUCKET, "PRIVATE", "meta", "a.txt", new byte[]{1, 2, 3, 4});
+
+        long requests = emulator.getRequestCount();
+        ObjectInfo head = cached.headObject(BUCKET, "meta/a.txt");
+        assertEquals(uploaded.getId(), head.getId());
+        assertEquals(4, head.getSize().intValue());
+        assertFalse(cached.objectExists(BUCKET, "meta/b.txt"));
+        assertFalse(cached.objectExists(BUCKET, "meta/b.txt"));
+        assertEquals(requests + 1, emulator.getRequestCount());
+
+        assertTrue(cached.updateObjectAcl(BUCKET, "meta/a.txt", "PUBLIC_READ"));
+        assertEquals("PUBLIC_READ", cached.headObject(BUCKET, "meta/a.txt").getAcl());
+
+        cached.upload(BUCKET, "PRIVATE", "meta", "b.txt", new byte[]{1});
+        assertTrue(cached.objectExists(BUCKET, "meta/b.txt"));
+
+        assertTrue(cached.removeObjectOrFolder(BUCKET, uploaded.getId()));
+        assertNull(cached.headObjectAsync(BUCKET, "meta/a.txt").join());
+    }
+
+    @Test
+    public void metadataCacheFailedWriteTest() throws IOException {
+        // 上传请求已到达服务端但超时，服务端可能已写入，缓存的“不存在”结果仍需失效
+        try (MockWebServer server = new MockWebServer()) {
+            String json = "application/json;charset=UTF-8";
+            server.enqueue(new MockResponse().setResponseCode(404).setHeader("Content-Type", json).setBody("{\"code\":\"404\",\"msg\":\"object not exist\"}"));
+            server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+            server.enqueue(new MockResponse().setHeader("Content-Type", json)
+                    .setBody("{\"code\":\"200\",\"msg\":\"SUCCESS\",\"data\":{\"id\":\"1\",\"fileName\":\"a.txt\",\"filePath\":\"/meta\",\"size\":3}}"));
+            server.start();
+            ObjectManage cached = objectManage(server, config -> {
+                config.setUploadTimeout(1);
+                config.setMetadataCacheSize(100);
+            });
+
+            assertNull(cached.headObject(BUCKET, "meta/a.txt"));
+            try {
+                cached.upload(BUCKET, "PRIVATE", "meta", "a.txt", new byte[]{1, 2, 3}, 0, 3);
+                fail("upload should time out");
+            } catch (OssException expected) {
+                // ignore
+            }
+            assertEquals(3, cached.headObject(BUCKET, "meta/a.txt").getSize().intValue());
+        }
+    }
+
+    @Test
+    public void bucketCacheTest() throws OssException {
+        BucketManage cached = bucketManage(config -> config.setBucketCacheTtl(60));
+        assertEquals(1, cached.queryBucket(null).size());
+
+        long requests = emulator.getRequestCount();
+        assertEquals(1, cached.queryBucket(null).size());
+        assertEquals(1, cached.queryBucketAsync(null).join().size());
+        assertEquals(BUCKET, cached.getBucket(BUCKET).getName());
+        assertEquals(BUCKET, cached.getBucket(BUCKET).getName());
+        assertEquals(requests + 1, emulator.getRequestCount());
+
+        assertTrue(cached.createBucket("emulator-new", "oss-emulator", "PUBLIC_READ"));
+        assertEquals(2, cached.queryBucket(null).size());
+        assertTrue(cached.updateAclAsync("emulator-new", "PRIVATE").join());
+        assertEquals("PRIVATE", cached.getBucket("emulator-new").getAcl());
+        assertTrue(cached.delete("emulator-new"));
+        assertNull(cached.getBucket("emulator-new"));
+    }
+
+    @Test
+    public void bucketCacheLoaderTest() throws OssException {
+        HttpMetrics firstMetrics = new HttpMetrics();
+        BucketManage first = bucketManage(config -> {
+            config.setBucketCacheTtl(60);
+            config.setMetrics(firstMetrics);
+        });
+        assertEquals(1, first.queryBucket(null).size());
+
+        // 同一地址、密钥与有效期共享缓存，但加载使用各自的客户端
+        HttpMetrics secondMetrics = new HttpMetrics();
+        BucketManage second = bucketManage(config -> {
+            config.setBucketCacheTtl(60);
+            config.setMetrics(secondMetrics);
+        });
+        assertEquals(1, second.queryBucketAsync(null).join().size());
+        assertEquals(0, callCount(secondMetrics, "list", "200"));
+
+        assertTrue(second.createBucket("emulator-loader", "oss-emulator", null));
+        assertEquals(2, second.queryBucket(null).size());
+        assertEquals(1, callCount(firstMetrics, "list", "200"));
+        assertEquals(1, callCount(secondMetrics, "list", "200"));
+    }
+
+    @Test
+    public void objectDiskCacheTest() throws OssException, IOException {
+        Path dir = Files.createTempDirectory("emulator-cache");
+        Path target = Files.createTempFile("emulator", ".download");
+        try {
+            HttpMetrics metrics = new HttpMetrics();
+            ObjectManage cached = objectManage(config -> {
+                config.setMetrics(metrics);
+                config.setObjectCacheDir(dir);
+                config.setObjectCacheSize(1024 * 1024);
+            });
+            byte[] first = new byte[600 * 1024];
+            new Random(1).nextBytes(first);
+            cached.upload(BUCKET, "PRIVATE", "cache", "a.bin", first, 0, first.length);
+
+            assertArrayEquals(first, cached.getObject(BUCKET, "cache/a.bin"));
+            assertArrayEquals(first, cached.getObject(BUCKET, "cache/a.bin"));
+            assertEquals(first.length, cached.getObject(BUCKET, "cache/a.bin", target));
+            assertArrayEquals(first, Files.readAllBytes(target));
+            assertArrayEquals(first, cached.getObjectAsync(BUCKET, "cache/a.bin").join());
+            assertEquals(3, callCount(metrics, "get_object", "304"));
+
+            byte[] second = new byte[500 * 1024];
+            new Random(2).nextBytes(second);
+            cached.upload(BUCKET, "PRIVATE", "cache", "a.bin", second, 0, second.length);
+            assertArrayEquals(second, cached.getObject(BUCKET, "cache/a.bin"));
+            cached.upload(BUCKET, "PRIVATE", "cache", "b.bin", first, 0, first.length);
+            assertArrayEquals(first, cached.getObject(BUCKET, "cache/b.bin"));
+            assertEquals(3, callCount(metrics, "get_object", "200"));
+
+            // a.bin 被淘汰，总大小不超过上限
+            long cachedBytes = 0;
+            for (Path file : Files.newDirectoryStream(dir, "*.data")) {
+                cachedBytes += Files.size(file);
+            }
+            assertEquals(first.length, cachedBytes);
+
+            ObjectInfo info = cached.headObject(BUCKET, "cache/b.bin");
+            assertTrue(cached.removeObjectOrFolder(BUCKET, info.getId()));
+            try {
+                cached.getObject(BUCKET, "cache/b.bin");
+                fail();
+            } catch (OssException expected) {
+                assertFalse(Files.newDirectoryStream(dir, "*.data").iterator().hasNext());
+            }
+        } finally {
+            for (Path file : Files.newDirectoryStream(dir)) {
+                Files.delete(file);
+            }
+            Files.delete(dir);
+            Files.delete(target);
+        }
+    }
+
+    @Test
+    public void deleteObjectsTest() throws OssException {
+        ObjectManage batch = objectManage(config -> {
+            config.setDeleteBatchSize(7);
+            config.setDeleteConcurrency(3);
+        });
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ids.add(batch.upload(BUCKET, "PRIVATE", "batch", i + ".txt", new byte[]{(byte) i}).getId());
+        }
+        ids.add(ids.get(0));
+        ids.add("missing-id");
+
+        long requests = emulator.getRequestCount();
+        DeleteResult result = batch.deleteObjects(BUCKET, ids);
+        assertEquals(8, emulator.getRequestCount() - requests);
+        assertTrue(result.isSuccessful());
+        assertEquals(50, result.getDeleted().size());
+        assertEquals(ids.subList(0, 50), result.getDeleted());
+        assertEquals(Collections.singletonList("missing-id"), result.getNotFound());
+        assertEquals(0, batch.listObjects(BUCKET, "batch", null, 100).getObjects().size());
+
+        DeleteResult failed = batch.deleteObjectsAsync("no-such-bucket", ids.subList(0, 10)).join();
+        assertFalse(failed.isSuccessful());
+        assertEquals(10, failed.getFailed().size());
+    }
+
+    @Test
+    public void deleteNumericIdsTest() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setHeader("Content-Type", Constants.JSON_MIME)
+                    .setBody("{\"code\":\"200\",\"msg\":\"SUCCESS\",\"data\":[123,456]}"));
+            server.start();
+            ObjectManage numeric = objectManage(server, config -> { });
+
+            DeleteResult result = numeric.deleteObjects(BUCKET, Arrays.asList("123", "456", "789"));
+            assertEquals(Arrays.asList("123", "456"), result.getDeleted());
+            assertEquals(Collections.singletonList("789"), result.getNotFound());
+        }
+    }
+
+    @Test
+    public void adaptiveConcurrencyTest() throws Exception {
+        OssEmulator limited = OssEmulator.builder().credential(accessKeyId, accessKeySecret).bucket(BUCKET)
+                .latency(20).capacity(4).start();
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        try {
+            HttpMetrics metrics = new HttpMetrics();
+            ObjectManage adaptive = objectManage(limited.getHost(), config -> {
+                config.setMetrics(metrics);
+                config.setAdaptiveConcurrency(true);
+            });
+            adaptive.upload(BUCKET, "PRIVATE", null, "limited.bin", new byte[]{1, 2, 3});
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(pool.submit(() -> {
+                    for (int j = 0; j < 10; j++) {
+                        try {
+                            adaptive.getObject(BUCKET, "limited.bin");
+                        } catch (OssException e) {
+                            // 超出容量，计入下调
+                        }
+                    }
+                }));
+            }
+            // 异步请求超出上限时排队，不占用调度器线程
+            List<CompletableFuture<byte[]>> asyncFutures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                asyncFutures.add(adaptive.getObjectAsync(BUCKET, "limited.bin"));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            for (CompletableFuture<byte[]> future : asyncFutures) {
+                future.handle((data, e) -> null).get(30, TimeUnit.SECONDS);
+            }
+
+            CapturingSink sink = CapturingSink.export(metrics);
+            Map<String, String> host = Collections.singletonMap("host", limited.getHost());
+            // 上限从 16 下调到服务端容量附近；固定 16 并发时约 3/4 的请求超出容量
+            assertTrue(sink.gauge("oss.http.limiter.limit", host) < 16);
+            assertTrue(sink.gauge("oss.http.limiter.decreases", host) > 0);
+            assertEquals(0, sink.gauge("oss.http.limiter.in_flight", host), 0);
+        } finally {
+            pool.shutdownNow();
+            limited.close();
+        }
+    }
+
+    @Test
+    public void adaptiveLargeUploadTest() throws OssException {
+        HttpMetrics metrics = new HttpMetrics();
+        ObjectManage adaptive = objectManage(config -> {
+            config.setMetrics(metrics);
+            config.setAdaptiveConcurrency(true);
+            config.setUploadTimeout(60);
+        });
+        adaptive.upload(BUCKET, "PRIVATE", null, "small.bin", new byte[]{1, 2, 3});
+        for (int i = 0; i < 20; i++) {
+            adaptive.getObject(BUCKET, "small.bin");
+        }
+        // 大请求体的耗时取决于上传速度，不作为耗时样本，不触发下调
+        byte[] large = new byte[4 * 1024 * 1024];
+        new Random(3).nextBytes(large);
+        for (int i = 0; i < 3; i++) {
+            adaptive.upload(BUCKET, "PRIVATE", null, "large.bin", large);
+        }
+        Map<String, String> host = Collections.singletonMap("host", emulator.getHost());
+        assertEquals(0, CapturingSink.export(metrics).gauge("oss.http.limiter.decreases", host), 0);
+    }
+
+    @Test
+    public void uploadDirectoryTest() throws OssException, IOException {
+        Path root = Files.createTempDirectory("emulator-dir");
+        try {
+            Files.createDirectories(root.resolve("sub/deep"));
+            Files.createDirectories(root.resolve("empty"));
+            Files.createDirectories(root.resolve("bad-name"));
+            Files.write(root.resolve("x.txt"), new byte[]{1});
+            Files.write(root.resolve("sub/y.txt"), new byte[]{1, 2});
+            Files.write(root.resolve("sub/deep/z.txt"), new byte[]{1, 2, 3});
+            Files.write(root.resolve("bad-name/w.txt"), new byte[]{1, 2, 3, 4});
+
+            DirectoryUploadResult result = objectManage.uploadDirectory(BUCKET, "PRIVATE", root, "/up/");
+            assertEquals(4, result.getUploadedFiles());
+            assertEquals(10, result.getUploadedBytes());
+            // up/sub/deep、up/empty 必定创建；up、up/sub 先于子目录遇到时单独创建一次，否则随子目录创建
+            assertTrue(result.getCreatedFolders() >= 2 && result.getCreatedFolders() <= 4);
+            assertEquals(Collections.singleton("up/bad-name/"), result.getFailed().keySet());
+            assertArrayEquals(new byte[]{1, 2, 3}, objectManage.getObject(BUCKET, "up/sub/deep/z.txt"));
+            assertArrayEquals(new byte[]{1, 2, 3, 4}, objectManage.getObject(BUCKET, "up/bad-name/w.txt"));
+        } finally {
+            Files.walk(root).sorted(Collections.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void publisherTest() throws Exception {
+        byte[] data = new byte[200 * 1024 + 5];
+        new Random(3).nextBytes(data);
+        objectManage.upload(BUCKET, "PRIVATE", "pub", "data.bin", data);
+
+        // 每次只请求一块，未请求时不再收到数据
+        CollectingSubscriber<ByteBuffer> content = new CollectingSubscriber<>(1);
+        objectManage.getObjectPublisher(BUCKET, "pub/data.bin").subscribe(content);
+        content.awaitItems(1);
+        Thread.sleep(100);
+        assertEquals(1, content.items.size());
+        content.request(Long.MAX_VALUE);
+        content.awaitDone();
+        assertNull(content.error);
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        for (ByteBuffer chunk : content.items) {
+            assertTrue(chunk.remaining() <= 64 * 1024);
+            received.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+        }
+        assertArrayEquals(data, received.toByteArray());
+
+        CollectingSubscriber<ByteBuffer> missing = new CollectingSubscriber<>(1);
+        objectManage.getObjectPublisher(BUCKET, "pub/missing.bin").subscribe(missing);
+        missing.awaitDone();
+        assertTrue(missing.error instanceof OssException);
+
+        for (int i = 0; i < 25; i++) {
+            objectManage.upload(BUCKET, "PRIVATE", "pub/list", String.format("%02d.txt", i), new byte[]{(byte) i});
+        }
+        CollectingSubscriber<ObjectInfo> all = new CollectingSubscriber<>(Long.MAX_VALUE);
+        objectManage.listObjectsPublisher(BUCKET, "pub/list", 10).subscribe(all);
+        all.awaitDone();
+        assertEquals(25, all.items.size());
+        assertEquals("/pub/list/24.txt", all.items.get(24).getFilePath() + "/" + all.items.get(24).getFileName());
+
+        // 只请求 3 个后取消，只请求首页
+        long requests = emulator.getRequestCount();
+        CollectingSubscriber<ObjectInfo> first = new CollectingSubscriber<>(3);
+        objectManage.listObjectsPublisher(BUCKET, "pub/list", 10).subscribe(first);
+        first.awaitItems(3);
+        first.subscription.cancel();
+        Thread.sleep(100);
+        assertEquals(3, first.items.size());
+        assertEquals(requests + 1, emulator.getRequestCount());
+    }
+
+    @Test
+    public void h2cTest() throws Exception {
+        // 模拟服务基于 JDK HttpServer，只支持 HTTP/1.1，h2c 使用只接受 HTTP/2 的 MockWebServer
+        byte[] data = {4, 5, 6};
+        try (MockWebServer server = new MockWebServer()) {
+            server.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+            for (int i = 0; i < 8; i++) {
+                server.enqueue(new MockResponse().setHeader("Content-Type", "application/octet-stream").setBody(new Buffer().write(data)));
+            }
+            server.start();
+            ObjectManage h2c = objectManage(server, config -> config.setProtocol(HttpProtocol.H2C));
+
+            List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(h2c.getObjectAsync(BUCKET, "h2c/" + i + ".bin"));
+            }
+            for (CompletableFuture<byte[]> future : futures) {
+                assertArrayEquals(data, future.join());
+            }
+            // 8 个并发请求复用同一连接，到达顺序不定
+            List<Integer> sequence = new ArrayList<>();
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                sequence.add(server.takeRequest().getSequenceNumber());
+                expected.add(i);
+            }
+            Collections.sort(sequence);
+            assertEquals(expected, sequence);
+        }
+
+        try {
+            objectManage(config -> {
+                config.setUseHttpsDomains(true);
+                config.setProtocol(HttpProtocol.H2C);
+            });
+            fail("h2c requires http address");
+        } catch (IllegalArgumentException expected) {
+            // ignore
+        }
+    }
+
+    @Test
+    public void streamingHedgeTest() throws Exception {
+        byte[] data = {4, 5, 6};
+        AtomicInteger requests = new AtomicInteger();
+        try (MockWebServer server = new MockWebServer()) {
+            server.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                    // 预热之后的第一个请求迟迟不返回响应头
+                    if (requests.incrementAndGet() == 41) {
+                        Thread.sleep(3000);
+                    }
+                    return new MockResponse().setHeader("Content-Type", "application/octet-stream").setBody(new Buffer().write(data));
+                }
+            });
+            server.start();
+            ObjectManage hedged = objectManage(server, config -> config.setRetryPolicy(RetryPolicy.builder().hedge(0.9, 50).build()));
+            for (int i = 0; i < 40; i++) {
+                assertEquals(data.length, hedged.getObject(BUCKET, "hedge.bin", new ByteArrayOutputStream()));
+            }
+
+            long start = System.nanoTime();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            hedged.getObject(BUCKET, "hedge.bin", out);
+            assertArrayEquals(data, out.toByteArray());
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+            assertEquals(42, requests.get());
+        }
+    }
+
+    @Test
+    public void virtualThreadsTest() throws Exception {
+        byte[] data = {7, 8, 9};
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        try (MockWebServer server = new MockWebServer()) {
+            server.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                    peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(200);
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                    return new MockResponse().setHeader("Content-Type", "application/octet-stream").setBody(new Buffer().write(data));
+                }
+            });
+            server.start();
+            ObjectManage virtual = objectManage(server, config -> config.setVirtualThreads(true));
+
+            List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(virtual.getObjectAsync(BUCKET, "virtual/" + i + ".bin"));
+            }
+            for (CompletableFuture<byte[]> future : futures) {
+                assertArrayEquals(data, future.get(30, TimeUnit.SECONDS));
+            }
+        }
+        if (VirtualThreads.isAvailable()) {
+            // 虚拟线程调度器不再限制单 host 16 个并发
+            assertTrue(peak.get() > 16);
+        } else {
+            // 低版本 JDK 回退到默认调度器
+            assertTrue(peak.get() <= 16);
+        }
+    }
+
+    @Test
+    public void asyncValidationTest() {
+        // 参数校验失败以异常完成的 future 返回，不同步抛出
+        assertFailed(objectManage.uploadAsync(BUCKET, "WRONG_ACL", null, "x.bin", new byte[]{1}));
+        assertFailed(objectManage.uploadAsync(BUCKET, "WRONG_ACL", null, "x.bin", new byte[]{1}, 0, 1));
+        assertFailed(objectManage.getObjectAsync(BUCKET, "/x.bin"));
+        assertFailed(objectManage.listObjectsAsync(BUCKET, null, null, 0));
+        assertFailed(objectManage.getObjectTempAccessUrlWithExpiredAsync(BUCKET, "x.bin", 1));
+        assertFailed(objectManage.updateObjectAclAsync(BUCKET, "x.bin", "WRONG_ACL"));
+        assertFailed(bucketManage.createBucketAsync("", "oss-emulator", null));
+        assertFailed(bucketManage.deleteAsync(""));
+    }
+
+    @Test
+    public void compressionTest() throws OssException {
+        ObjectManage compressed = objectManage(config -> config.setRequestCompressionThreshold(1024));
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        byte[] data = text.toString().getBytes(StandardCharsets.UTF_8);
+        String base64 = java.util.Base64.getEncoder().encodeToString(data);
+        compressed.upload(BUCKET, "PRIVATE", "gzip", "text.txt", "data:text/plain;base64," + base64);
+        assertEquals(1, emulator.getGzipRequestCount());
+        assertArrayEquals(data, compressed.getObject(BUCKET, "gzip/text.txt"));
+
+        // byte[] 序列化为数字数组，按序列化后的长度判断
+        compressed.upload(BUCKET, "PRIVATE", "gzip", "bytes.txt", data);
+        assertEquals(2, emulator.getGzipRequestCount());
+        assertArrayEquals(data, compressed.getObject(BUCKET, "gzip/bytes.txt"));
+
+        // 小于阈值不压缩
+        compressed.createFolder(BUCKET, "gzip/small");
+        compressed.upload(BUCKET, "PRIVATE", "gzip", "small.txt", new byte[]{1, 2, 3});
+        assertEquals(2, emulator.getGzipRequestCount());
+
+        // 响应由 OkHttp 协商，未配置请求压缩也会解压
+        for (int i = 0; i < 30; i++) {
+            objectManage.upload(BUCKET, "PRIVATE", "gzip/list", i + ".txt", new byte[]{(byte) i});
+        }
+        long gzipResponses = emulator.getGzipResponseCount();
+        assertEquals(30, objectManage.listObjects(BUCKET, "gzip/list", null, 100).getObjects().size());
+        assertEquals(gzipResponses + 1, emulator.getGzipResponseCount());
+    }
+
+    private static void assertFailed(CompletableFuture<?> future) {
+        try {
+            future.join();
+            fail("future should complete exceptionally");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    /**
+     * 连接模拟服务的 ObjectManage
+     *
+     * @param customizer 修改默认配置
+     */
+    private ObjectManage objectManage(Consumer<Config> customizer) {
+        return objectManage(emulator.getHost(), customizer);
+    }
+
+    private static ObjectManage objectManage(MockWebServer server, Consumer<Config> customizer) {
+        return objectManage(server.getHostName() + ":" + server.getPort(), customizer);
+    }
+
+    private static ObjectManage objectManage(String host, Consumer<Config> customizer) {
+        Config config = new Config(host);
+        customizer.accept(config);
+        return new ObjectManage(Auth.create(accessKeyId, accessKeySecret), config);
+    }
+
+    /**
+     * 连接模拟服务的 BucketManage
+     *
+     * @param customizer 修改默认配置
+     */
+    private BucketManage bucketManage(Consumer<Config> customizer) {
+        Config config = new Config(emulator.getHost());
+        customizer.accept(config);
+        return new BucketManage(Auth.create(accessKeyId, accessKeySecret), config);
+    }
+
+    private static long callCount(HttpMetrics metrics, String endpoint, String status) {
+        return CapturingSink.export(metrics).count("oss.http.call", ImmutableMap.of("endpoint", endpoint, "status", status));
+    }
+
+    /**
+     * 记录一次导出的全部指标，按名称与标签查询，查询的标签为指标标签的子集即匹配
+     */
+    private static final class CapturingSink implements MetricsSink {
+        private final Map<String, Map<Map<String, String>, Histogram.Snapshot>> histograms = new HashMap<>();
+        private final Map<String, Map<Map<String, String>, Double>> gauges = new HashMap<>();
+
+        private static CapturingSink export(HttpMetrics metrics) {
+            CapturingSink sink = new CapturingSink();
+            metrics.export(sink);
+            return sink;
+        }
+
+        @Override
+        public void histogram(String name, Map<String, String> tags, Histogram.Snapshot snapshot) {
+            histograms.computeIfAbsent(name, k -> new HashMap<>()).put(tags, snapshot);
+        }
+
+        @Override
+        public void gauge(String name, Map<String, String> tags, double value) {
+            gauges.computeIfAbsent(name, k -> new HashMap<>()).put(tags, value);
+        }
+
+        /**
+         * @return 匹配的直方图样本数之和
+         */
+        private long count(String name, Map<String, String> tags) {
+            long count = 0;
+            for (Map.Entry<Map<String, String>, Histogram.Snapshot> entry : histograms.getOrDefault(name, Collections.emptyMap()).entrySet()) {
+                if (entry.getKey().entrySet().containsAll(tags.entrySet())) {
+                    count += entry.getValue().getCount();
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @return 匹配的 gauge 值，不存在时断言失败
+         */
+        private double gauge(String name, Map<String, String> tags) {
+            for (Map.Entry<Map<String, String>, Double> entry : gauges.getOrDefault(name, Collections.emptyMap()).entrySet()) {
+                if (entry.getKey().entrySet().containsAll(tags.entrySet())) {
+                    return entry.getValue();
+                }
+            }
+            throw new AssertionError("gauge not exported: " + name + tags);
+        }
+    }
+
+    /**
+     * 收集全部数据，订阅时请求 initial 个
+     */
+    private static final class CollectingSubscriber<T> implements Subscriber<T> {
+        private final long initial;
+        private final List<T> items = new CopyOnWriteArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+
+        private CollectingSubscriber(long initial) {
+            this.initial = initial;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+            s.request(initial);
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+
+        private void request(long n) {
+            subscription.request(n);
+        }
+
+        private void awaitItems(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (items.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        private void awaitDone() throws InterruptedException {
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+    }
+}
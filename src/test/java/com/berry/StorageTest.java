@@ -3,6 +3,7 @@ package com.berry;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.berry.common.OssException;
+import com.berry.http.RetryPolicy;
 import com.berry.storage.BucketManage;
 import com.berry.storage.Config;
 import com.berry.storage.ObjectManage;
@@ -15,6 +16,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
 
 /**
@@ -45,6 +48,27 @@ public class StorageTest {
         System.out.println(JSON.toJSONString(bucketInfos));
     }
 
+    /**
+     * 异步获取bucket 列表测试
+     */
+    @Test
+    public void listBucketAsyncTest() {
+        List<BucketInfo> bucketInfos = bucketManage.queryBucketAsync(null).join();
+        System.out.println(JSON.toJSONString(bucketInfos));
+    }
+
+    /**
+     * 带重试与对冲的 bucket 列表测试
+     */
+    @Test
+    public void listBucketWithRetryTest() throws OssException {
+        Config config = new Config("www.hicooper.cn:8077", 10, true);
+        config.setRetryPolicy(RetryPolicy.builder().maxRetries(3).hedge(0.95, 50).build());
+        BucketManage manage = new BucketManage(Auth.create(accessKeyId, accessKeySecret), config);
+        List<BucketInfo> bucketInfos = manage.queryBucket(null);
+        System.out.println(JSON.toJSONString(bucketInfos));
+    }
+
     /**
      * 创建 bucket 测试
      */
@@ -99,6 +123,22 @@ public class StorageTest {
         }
     }
 
+    /**
+     * 分片上传 对象 测试
+     */
+    @Test
+    public void multipartUploadTest() throws OssException {
+        File file = new File("./demo.png");
+        if (file.isFile() && file.exists()) {
+            ObjectInfo vo = objectManage.multipartUpload("berry", "PUBLIC_READ", null, file);
+            if (vo != null) {
+                System.out.println("上传成功！");
+            }
+        } else {
+            System.out.println("file not exist");
+        }
+    }
+
     /**
      * 上传 对象 测试
      */
@@ -148,6 +188,15 @@ public class StorageTest {
         }
     }
 
+    @Test
+    public void uploadObjectOctetDataTest() throws IOException {
+        byte[] fileData = Files.readAllBytes(Paths.get("./demo.png"));
+        ObjectInfo vo = objectManage.upload("berry", "PUBLIC_READ", null, "octet_test.png", fileData, 0, fileData.length);
+        if (vo != null) {
+            System.out.println("上传成功！");
+        }
+    }
+
     @Test
     public void getSignedObjUrl() {
         // 该资源所属账户为 admin，且为私有资源，当前账户为：test， admin 已授权test访问该资源
@@ -174,6 +223,24 @@ public class StorageTest {
         }
     }
 
+    /**
+     * 流式获取 对象 测试，对象内容直接写入文件
+     */
+    @Test
+    public void getObjectToFileTest() throws OssException {
+        long size = objectManage.getObject("master", "th.jpg", Paths.get("./th.jpg"));
+        System.out.println("get object success, size:" + size);
+    }
+
+    /**
+     * 分片并发下载 对象 测试
+     */
+    @Test
+    public void downloadObjectTest() throws OssException {
+        long size = objectManage.download("master", "th.jpg", Paths.get("./th_parallel.jpg"));
+        System.out.println("download object success, size:" + size);
+    }
+
     /**
      * 获取对象 临时访问 url 测试
      */
@@ -0,0 +1,356 @@
+package com.berry.emulator;
+
+import com.berry.common.Constants;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Title EmulatorStore
+ * Description 模拟服务的存储：bucket、对象元数据保存在内存，对象内容保存在内存或临时目录
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/20 10:12
+ */
+final class EmulatorStore {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    /**
+     * 对象内容目录，为空时保存在内存
+     */
+    private final Path dir;
+
+    EmulatorStore(@Nullable Path dir) {
+        this.dir = dir;
+    }
+
+    static final class Bucket {
+        final String name;
+        final String region;
+        final long createTime;
+        volatile String acl;
+        volatile long updateTime;
+        volatile Map<String, Object> referer = Collections.emptyMap();
+        /**
+         * 对象按全路径排序，便于按前缀分页
+         */
+        final NavigableMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+        /**
+         * 目录全路径 -> id
+         */
+        final ConcurrentMap<String, String> folders = new ConcurrentHashMap<>();
+
+        Bucket(String name, String region, String acl) {
+            this.name = name;
+            this.region = region;
+            this.acl = acl;
+            this.createTime = System.currentTimeMillis();
+            this.updateTime = createTime;
+        }
+    }
+
+    static final class StoredObject {
+        final String id;
+        final String fullPath;
+        final long size;
+        final String etag;
+        final long lastModified;
+        volatile String acl;
+        private final byte[] data;
+        private final Path file;
+
+        private StoredObject(String fullPath, String acl, long size, String etag, byte[] data, Path file) {
+            this.id = newId();
+            this.fullPath = fullPath;
+            this.acl = acl;
+            this.size = size;
+            this.etag = etag;
+            this.data = data;
+            this.file = file;
+            this.lastModified = System.currentTimeMillis();
+        }
+
+        String fileName() {
+            int i = fullPath.lastIndexOf('/');
+            return i < 0 ? fullPath : fullPath.substring(i + 1);
+        }
+
+        /**
+         * @return 所在目录，以 '/' 开头，根目录为 "/"
+         */
+        String filePath() {
+            int i = fullPath.lastIndexOf('/');
+            return i < 0 ? "/" : "/" + fullPath.substring(0, i);
+        }
+    }
+
+    static final class Upload {
+        final String bucket;
+        final String acl;
+        final String fullPath;
+        final ConcurrentMap<Integer, byte[]> parts = new ConcurrentHashMap<>();
+
+        private Upload(String bucket, String acl, String fullPath) {
+            this.bucket = bucket;
+            this.acl = acl;
+            this.fullPath = fullPath;
+        }
+    }
+
+    // ～ bucket
+    //=======================================================================================================================
+
+    boolean createBucket(String name, String region, String acl) {
+        return buckets.putIfAbsent(name, new Bucket(name, region, acl)) == null;
+    }
+
+    @Nullable
+    Bucket bucket(String name) {
+        return name == null ? null : buckets.get(name);
+    }
+
+    List<Bucket> buckets() {
+        List<Bucket> list = new ArrayList<>(buckets.values());
+        list.sort((a, b) -> a.name.compareTo(b.name));
+        return list;
+    }
+
+    boolean deleteBucket(String name) throws IOException {
+        Bucket bucket = buckets.remove(name);
+        if (bucket == null) {
+            return false;
+        }
+        for (StoredObject object : bucket.objects.values()) {
+            discard(object);
+        }
+        return true;
+    }
+
+    // ～ object
+    //=======================================================================================================================
+
+    /**
+     * 写入对象，同名对象被覆盖
+     *
+     * @param in 对象内容，读取至结束，不关闭
+     */
+    StoredObject put(Bucket bucket, String fullPath, String acl, InputStream in) throws IOException {
+        MessageDigest md5 = md5();
+        StoredObject object;
+        if (dir == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long size = copy(in, out, md5);
+            object = new StoredObject(fullPath, acl, size, etag(md5), out.toByteArray(), null);
+        } else {
+            Path file = Files.createTempFile(dir, "object-", ".bin");
+            long size;
+            try (OutputStream out = Files.newOutputStream(file)) {
+                size = copy(in, out, md5);
+            }
+            object = new StoredObject(fullPath, acl, size, etag(md5), null, file);
+        }
+        addParentFolders(bucket, fullPath);
+        StoredObject previous = bucket.objects.put(fullPath, object);
+        if (previous != null) {
+            discard(previous);
+        }
+        return object;
+    }
+
+    StoredObject put(Bucket bucket, String fullPath, String acl, byte[] data) throws IOException {
+        return put(bucket, fullPath, acl, new ByteArrayInputStream(data));
+    }
+
+    /**
+     * 打开对象内容
+     *
+     * @param object   对象
+     * @param position 起始位置
+     * @return 输入流，调用方关闭
+     */
+    InputStream open(StoredObject object, long position) throws IOException {
+        if (object.data != null) {
+            return new ByteArrayInputStream(object.data, (int) position, (int) (object.size - position));
+        }
+        FileChannel channel = FileChannel.open(object.file, StandardOpenOption.READ);
+        channel.position(position);
+        return Channels.newInputStream(channel);
+    }
+
+    /**
+     * 按前缀分页列出对象，包含子目录中的对象
+     *
+     * @param prefix 目录前缀，为空时列出全部
+     * @param marker 上一页最后一个对象的全路径，不包含
+     * @param limit  本页最大数量
+     * @return 对象列表，数量为 limit + 1 时表示还有下一页
+     */
+    List<StoredObject> list(Bucket bucket, String prefix, @Nullable String marker, int limit) {
+        NavigableMap<String, StoredObject> view = marker == null || marker.isEmpty()
+                ? bucket.objects.tailMap(prefix, true)
+                : bucket.objects.tailMap(marker.compareTo(prefix) < 0 ? prefix : marker, marker.compareTo(prefix) < 0);
+        List<StoredObject> page = new ArrayList<>(Math.min(limit + 1, 1024));
+        for (StoredObject object : view.values()) {
+            if (!object.fullPath.startsWith(prefix) || page.size() > limit) {
+                break;
+            }
+            page.add(object);
+        }
+        return page;
+    }
+
+    /**
+     * 按 id 删除对象或目录，目录连同其下所有对象一起删除
+     *
+     * @return 实际删除的 id
+     */
+    List<String> delete(Bucket bucket, Set<String> ids) throws IOException {
+        List<String> deleted = new ArrayList<>();
+        for (Map.Entry<String, String> folder : bucket.folders.entrySet()) {
+            if (ids.contains(folder.getValue())) {
+                String prefix = folder.getKey() + "/";
+                for (StoredObject object : new ArrayList<>(bucket.objects.tailMap(prefix, true).values())) {
+                    if (!object.fullPath.startsWith(prefix)) {
+                        break;
+                    }
+                    remove(bucket, object);
+                }
+                bucket.folders.keySet().removeIf(key -> key.equals(folder.getKey()) || key.startsWith(prefix));
+                deleted.add(folder.getValue());
+            }
+        }
+        for (StoredObject object : new ArrayList<>(bucket.objects.values())) {
+            if (ids.contains(object.id) && remove(bucket, object)) {
+                deleted.add(object.id);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 创建目录，包含各级父目录
+     *
+     * @return 目录 id
+     */
+    String createFolder(Bucket bucket, String folder) {
+        addParentFolders(bucket, folder + "/");
+        return bucket.folders.get(folder);
+    }
+
+    // ～ multipart
+    //=======================================================================================================================
+
+    String initUpload(String bucket, String acl, String fullPath) {
+        String uploadId = newId();
+        uploads.put(uploadId, new Upload(bucket, acl, fullPath));
+        return uploadId;
+    }
+
+    @Nullable
+    Upload upload(String uploadId) {
+        return uploadId == null ? null : uploads.get(uploadId);
+    }
+
+    /**
+     * @return 分片 etag
+     */
+    String putPart(Upload upload, int partNumber, byte[] data) {
+        upload.parts.put(partNumber, data);
+        MessageDigest md5 = md5();
+        md5.update(data);
+        return etag(md5);
+    }
+
+    void removeUpload(String uploadId) {
+        uploads.remove(uploadId);
+    }
+
+    // ～ private
+    //=======================================================================================================================
+
+    private boolean remove(Bucket bucket, StoredObject object) throws IOException {
+        if (bucket.objects.remove(object.fullPath, object)) {
+            discard(object);
+            return true;
+        }
+        return false;
+    }
+
+    private static void addParentFolders(Bucket bucket, String fullPath) {
+        int i = fullPath.indexOf('/');
+        while (i > 0) {
+            bucket.folders.putIfAbsent(fullPath.substring(0, i), newId());
+            i = fullPath.indexOf('/', i + 1);
+        }
+    }
+
+    private static void discard(StoredObject object) throws IOException {
+        if (object.file != null) {
+            Files.deleteIfExists(object.file);
+        }
+    }
+
+    private static long copy(InputStream in, OutputStream out, MessageDigest md5) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+            md5.update(buffer, 0, n);
+            total += n;
+        }
+        return total;
+    }
+
+    static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String etag(MessageDigest md5) {
+        byte[] digest = md5.digest();
+        StringBuilder sb = new StringBuilder(digest.length * 2 + 2).append('"');
+        for (byte b : digest) {
+            sb.append(Character.forDigit(b >> 4 & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.append('"').toString();
+    }
+
+    static String newId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    static boolean isPublicRead(Bucket bucket, StoredObject object) {
+        String acl = Constants.AclType.EXTEND_BUCKET.name().equals(object.acl) ? bucket.acl : object.acl;
+        return Constants.AclType.PUBLIC_READ.name().equals(acl) || Constants.AclType.PUBLIC_READ_WRITE.name().equals(acl);
+    }
+}
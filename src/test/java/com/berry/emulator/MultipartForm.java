@@ -0,0 +1,99 @@
+package com.berry.emulator;
+
+import com.berry.common.Constants;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Title MultipartForm
+ * Description 解析 multipart/form-data 请求体，仅支持模拟服务所需的普通字段与文件字段
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/20 11:05
+ */
+final class MultipartForm {
+
+    private static final Pattern BOUNDARY = Pattern.compile("boundary=\"?([^\";]+)\"?");
+    private static final Pattern NAME = Pattern.compile("\\bname=\"([^\"]*)\"");
+    private static final Pattern FILE_NAME = Pattern.compile("\\bfilename=\"([^\"]*)\"");
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+
+    final Map<String, String> fields = new HashMap<>();
+    final List<FilePart> files = new ArrayList<>();
+
+    static final class FilePart {
+        final String field;
+        final String fileName;
+        final byte[] data;
+
+        private FilePart(String field, String fileName, byte[] data) {
+            this.field = field;
+            this.fileName = fileName;
+            this.data = data;
+        }
+    }
+
+    /**
+     * @param contentType 请求 Content-Type，含 boundary
+     * @param body        请求体
+     * @return 表单，格式不正确时抛出 IllegalArgumentException
+     */
+    static MultipartForm parse(String contentType, byte[] body) {
+        Matcher matcher = BOUNDARY.matcher(contentType == null ? "" : contentType);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("missing multipart boundary");
+        }
+        byte[] delimiter = ("--" + matcher.group(1)).getBytes(Constants.UTF_8);
+        MultipartForm form = new MultipartForm();
+        int pos = indexOf(body, delimiter, 0);
+        while (pos >= 0) {
+            int partStart = pos + delimiter.length;
+            // 结束分隔符 --boundary--
+            if (partStart + 1 < body.length && body[partStart] == '-' && body[partStart + 1] == '-') {
+                break;
+            }
+            partStart += 2;
+            int headerEnd = indexOf(body, HEADER_END, partStart);
+            int next = indexOf(body, delimiter, partStart);
+            if (headerEnd < 0 || next < 0) {
+                throw new IllegalArgumentException("malformed multipart body");
+            }
+            String headers = new String(body, partStart, headerEnd - partStart, Constants.UTF_8);
+            int dataStart = headerEnd + HEADER_END.length;
+            // 内容之后紧跟 \r\n 再是分隔符
+            int dataEnd = next - 2;
+            byte[] data = new byte[Math.max(0, dataEnd - dataStart)];
+            System.arraycopy(body, dataStart, data, 0, data.length);
+            Matcher name = NAME.matcher(headers);
+            Matcher fileName = FILE_NAME.matcher(headers);
+            if (name.find()) {
+                if (fileName.find()) {
+                    form.files.add(new FilePart(name.group(1), fileName.group(1), data));
+                } else {
+                    form.fields.put(name.group(1), new String(data, Constants.UTF_8));
+                }
+            }
+            pos = next;
+        }
+        return form;
+    }
+
+    private static int indexOf(byte[] source, byte[] target, int from) {
+        outer:
+        for (int i = from; i <= source.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (source[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
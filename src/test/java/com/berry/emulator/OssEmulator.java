@@ -0,0 +1,1205 @@
+package com.berry.emulator;
+
+import com.berry.common.Constants;
+import com.berry.emulator.EmulatorStore.Bucket;
+import com.berry.emulator.EmulatorStore.StoredObject;
+import com.berry.emulator.EmulatorStore.Upload;
+import com.berry.storage.dto.BucketInfo;
+import com.berry.storage.dto.GenerateUrlWithSigned;
+import com.berry.storage.dto.ObjectInfo;
+import com.berry.storage.url.UrlFactory;
+import com.berry.util.Auth;
+import com.berry.util.Base64Util;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Title OssEmulator
+ * Description 进程内 OSS 模拟服务，实现 {@link UrlFactory} 中的全部接口，用于离线测试与压测
+ * <p>校验 oss_sdk_authorization 签名，可模拟网络延迟与带宽；对象内容保存在内存或指定目录。
+ * 所有密钥对共享同一命名空间，不区分 bucket 归属。
+ * HttpServer 默认开启 Nagle，小响应与客户端延迟确认叠加后每个请求约 40ms，
+ * 需以 -Dsun.net.httpserver.nodelay=true 启动 JVM，build.gradle 已为 test 与 jmh 设置</p>
+ * <pre>
+ * try (OssEmulator emulator = OssEmulator.builder().credential(id, secret).bucket("test").start()) {
+ *     ObjectManage objectManage = new ObjectManage(Auth.create(id, secret), new Config(emulator.getHost()));
+ * }
+ * </pre>
+ *
+ * @author berry_cooper
+ * @version 1.0
+ * @date 2019/9/20 14:30
+ */
+public final class OssEmulator implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OssEmulator.class);
+
+    private static final String FILE_PREFIX = "/ajax/bucket/file/";
+    private static final String TOKEN_PREFIX = "OSS-";
+    private static final String REGION = "oss-emulator";
+    private static final int DEFAULT_LIST_LIMIT = 100;
+    private static final int MAX_LIST_LIMIT = 1000;
+    private static final int THROTTLE_CHUNK = 16 * 1024;
+    /**
+     * 客户端接受 gzip 时，不小于该大小的 JSON 响应压缩
+     */
+    private static final int GZIP_MIN_SIZE = 1024;
+
+    private static final Gson GSON = new Gson();
+    // CHECKSTYLE:OFF
+    private static final Type MAP_TYPE = new TypeToken<Map<String, Object>>() {
+    }.getType();
+    // CHECKSTYLE:ON
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final EmulatorStore store;
+    private final Path tempDir;
+    private final Map<String, Auth> credentials;
+    private final Auth urlSigner = Auth.create("emulator", UUID.randomUUID().toString());
+    private final long latencyMillis;
+    private final long bandwidth;
+    private final int capacity;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, Handler> handlers = new HashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong gzipRequestCount = new AtomicLong();
+    private final AtomicLong gzipResponseCount = new AtomicLong();
+    private volatile Consumer<HttpExchange> requestHook;
+
+    /**
+     * 接口处理，返回值作为响应 data
+     */
+    private interface Handler {
+        Object handle(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * 业务错误，按 http 状态码与 {code, msg} 返回
+     */
+    private static final class ApiException extends IOException {
+        private final int status;
+
+        private ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private OssEmulator(Builder builder) throws IOException {
+        this.credentials = new HashMap<>(builder.credentials);
+        this.latencyMillis = builder.latencyMillis;
+        this.bandwidth = builder.bandwidth;
+        this.capacity = builder.capacity;
+        this.tempDir = builder.tempStorage ? Files.createTempDirectory("oss-emulator") : null;
+        this.store = new EmulatorStore(tempDir != null ? tempDir : builder.storageDir);
+        for (String bucket : builder.buckets) {
+            store.createBucket(bucket, REGION, Constants.AclType.PRIVATE.name());
+        }
+        registerHandlers();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "oss-emulator-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port), 0);
+        server.createContext("/", this::dispatch);
+        server.setExecutor(executor);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return ip:端口，用于 {@link com.berry.storage.Config}
+     */
+    public String getHost() {
+        return server.getAddress().getAddress().getHostAddress() + ":" + getPort();
+    }
+
+    public String getAddress() {
+        return "http://" + getHost();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return 已收到的请求数
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return 请求体为 gzip 的请求数
+     */
+    public long getGzipRequestCount() {
+        return gzipRequestCount.get();
+    }
+
+    /**
+     * @return 以 gzip 压缩的响应数
+     */
+    public long getGzipResponseCount() {
+        return gzipResponseCount.get();
+    }
+
+    /**
+     * 每个请求处理前（延迟之后）在服务线程上调用，可用于在请求之间修改对象
+     *
+     * @param hook 为 null 时移除
+     */
+    public void onRequest(Consumer<HttpExchange> hook) {
+        this.requestHook = hook;
+    }
+
+    /**
+     * 创建 bucket，已存在时忽略
+     */
+    public void createBucket(String name, String acl) {
+        store.createBucket(name, REGION, acl);
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.stop(0);
+        executor.shutdownNow();
+        if (tempDir != null) {
+            deleteRecursively(tempDir);
+        }
+    }
+
+    // ～ dispatch
+    //=======================================================================================================================
+
+    private void registerHandlers() {
+        handlers.put(UrlFactory.BucketUr.list.getUrl(), this::listBuckets);
+        handlers.put(UrlFactory.BucketUr.new_create_bucket.getUrl(), this::createBucket);
+        handlers.put(UrlFactory.BucketUr.overview.getUrl(), this::overview);
+        handlers.put(UrlFactory.BucketUr.set_acl.getUrl(), this::setBucketAcl);
+        handlers.put(UrlFactory.BucketUr.delete_bucket.getUrl(), this::deleteBucket);
+        handlers.put(UrlFactory.BucketUr.get_referer.getUrl(), this::getReferer);
+        handlers.put(UrlFactory.BucketUr.update_referer.getUrl(), this::updateReferer);
+        handlers.put(UrlFactory.BucketUr.get_last_thirty_day_file_access_data.getUrl(), exchange -> Collections.emptyList());
+        handlers.put(UrlFactory.BucketUr.get_last_thirty_day_hot_data.getUrl(), exchange -> Collections.emptyList());
+
+        handlers.put(UrlFactory.ObjectUrl.create.getUrl(), this::createObjects);
+        handlers.put(UrlFactory.ObjectUrl.upload_byte.getUrl(), this::uploadByte);
+        handlers.put(UrlFactory.ObjectUrl.upload_octet.getUrl(), this::uploadOctet);
+        handlers.put(UrlFactory.ObjectUrl.upload_base64.getUrl(), this::uploadBase64);
+        handlers.put(UrlFactory.ObjectUrl.create_folder.getUrl(), this::createFolder);
+        handlers.put(UrlFactory.ObjectUrl.generate_url_with_signed.getUrl(), this::generateUrl);
+        handlers.put(UrlFactory.ObjectUrl.delete_objects.getUrl(), this::deleteObjects);
+        handlers.put(UrlFactory.ObjectUrl.head_object.getUrl(), this::headObject);
+        handlers.put(UrlFactory.ObjectUrl.list_objects.getUrl(), this::listObjects);
+        handlers.put(UrlFactory.ObjectUrl.set_object_acl.getUrl(), this::setObjectAcl);
+        handlers.put(UrlFactory.ObjectUrl.init_multipart_upload.getUrl(), this::initMultipartUpload);
+        handlers.put(UrlFactory.ObjectUrl.upload_part.getUrl(), this::uploadPart);
+        handlers.put(UrlFactory.ObjectUrl.complete_multipart_upload.getUrl(), this::completeMultipartUpload);
+        handlers.put(UrlFactory.ObjectUrl.abort_multipart_upload.getUrl(), this::abortMultipartUpload);
+    }
+
+    private void dispatch(HttpExchange exchange) {
+        requestCount.incrementAndGet();
+        int concurrent = inFlight.incrementAndGet();
+        try {
+            if (capacity > 0 && concurrent > capacity) {
+                throw new ApiException(503, "server busy");
+            }
+            if (latencyMillis > 0) {
+                sleep(latencyMillis);
+            }
+            Consumer<HttpExchange> hook = requestHook;
+            if (hook != null) {
+                hook.accept(exchange);
+            }
+            String path = exchange.getRequestURI().getRawPath();
+            if (path.startsWith(FILE_PREFIX)) {
+                getObject(exchange);
+                return;
+            }
+            Handler handler = handlers.get(path);
+            if (handler == null) {
+                throw new ApiException(404, "no such api: " + path);
+            }
+            if (!authenticate(exchange)) {
+                throw new ApiException(401, "signature mismatch");
+            }
+            Object data = handler.handle(exchange);
+            sendJson(exchange, 200, Constants.API_SUCCESS_CODE, Constants.API_SUCCESS_MSG, data);
+        } catch (ApiException e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("emulator request fail, url:{}, msg:{}", exchange.getRequestURI(), e.getMessage());
+            sendError(exchange, 500, String.valueOf(e.getMessage()));
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    /**
+     * 校验签名，签名来自请求头，无请求头时取 url 参数 token
+     * <p>SDK 部分请求在签名之后才追加参数（GET 参数、token），依次尝试完整 query、去掉 token 的 query 与仅 path；
+     * OkHttp 会对 path 中的非 ASCII 字符编码，同时尝试解码后的 path</p>
+     */
+    private boolean authenticate(HttpExchange exchange) {
+        URI uri = exchange.getRequestURI();
+        String rawQuery = uri.getRawQuery();
+        String token = exchange.getRequestHeaders().getFirst(Auth.OSS_SDK_AUTH_HEAD_NAME);
+        if (token == null) {
+            token = queryToken(rawQuery);
+        }
+        if (token == null || !token.startsWith(TOKEN_PREFIX) || token.indexOf(':') < 0) {
+            return false;
+        }
+        Auth auth = credentials.get(token.substring(TOKEN_PREFIX.length(), token.indexOf(':')));
+        if (auth == null) {
+            return false;
+        }
+        String strippedQuery = stripToken(rawQuery);
+        for (String path : new String[]{uri.getRawPath(), uri.getPath()}) {
+            for (String query : new String[]{rawQuery, strippedQuery, null}) {
+                String url = query == null || query.isEmpty() ? path : path + "?" + query;
+                if (token.equals(auth.getSign(url))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // ～ bucket
+    //=======================================================================================================================
+
+    private Object listBuckets(HttpExchange exchange) {
+        String name = query(exchange).get("name");
+        List<BucketInfo> list = new ArrayList<>();
+        for (Bucket bucket : store.buckets()) {
+            if (name == null || bucket.name.contains(name)) {
+                list.add(bucketInfo(bucket));
+            }
+        }
+        return list;
+    }
+
+    private Object createBucket(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = jsonBody(exchange);
+        String name = required(body, "name");
+        if (!name.matches(Constants.BUCKET_NAME_PATTERN)) {
+            throw new ApiException(400, "bucket name illegal");
+        }
+        String acl = body.containsKey("acl") ? acl(body) : Constants.AclType.PRIVATE.name();
+        if (!store.createBucket(name, required(body, "region"), acl)) {
+            throw new ApiException(400, "bucket already exist");
+        }
+        return null;
+    }
+
+    private Object overview(HttpExchange exchange) throws IOException {
+        Bucket bucket = bucket(query(exchange).get("bucket"));
+        long size = 0;
+        for (StoredObject object : bucket.objects.values()) {
+            size += object.size;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("name", bucket.name);
+        data.put("region", bucket.region);
+        data.put("acl", bucket.acl);
+        data.put("objectCount", bucket.objects.size());
+        data.put("storageSize", size);
+        data.put("formattedSize", formatSize(size));
+        return data;
+    }
+
+    private Object setBucketAcl(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = jsonBody(exchange);
+        Bucket bucket = bucket(required(body, "bucket"));
+        bucket.acl = acl(body);
+        bucket.updateTime = System.currentTimeMillis();
+        return null;
+    }
+
+    private Object deleteBucket(HttpExchange exchange) throws IOException {
+        String name = required(jsonBody(exchange), "bucket");
+        if (!store.deleteBucket(name)) {
+            throw new ApiException(404, "bucket not exist");
+        }
+        return null;
+    }
+
+    private Object getReferer(HttpExchange exchange) throws IOException {
+        Bucket bucket = bucket(query(exchange).get("bucket"));
+        if (!bucket.referer.isEmpty()) {
+            return bucket.referer;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("allowEmpty", true);
+        data.put("whiteList", "");
+        data.put("blackList", "");
+        return data;
+    }
+
+    private Object updateReferer(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = jsonBody(exchange);
+        Bucket bucket = bucket(required(body, "bucket"));
+        body.remove("bucket");
+        bucket.referer = body;
+        return null;
+    }
+
+    // ～ object
+    //=======================================================================================================================
+
+    private Object createObjects(HttpExchange exchange) throws IOException {
+        MultipartForm form;
+        try {
+            form = MultipartForm.parse(exchange.getRequestHeaders().getFirst("Content-Type"), readBody(exchange));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, e.getMessage());
+        }
+        Bucket bucket = bucket(form.fields.get("bucket"));
+        String acl = acl(form.fields.get("acl"));
+        List<ObjectInfo> list = new ArrayList<>(form.files.size());
+        for (MultipartForm.FilePart file : form.files) {
+            String fullPath = fullPath(form.fields.get("filePath"), file.fileName);
+            list.add(objectInfo(bucket, store.put(bucket, fullPath, acl, file.data)));
+        }
+        return list;
+    }
+
+    /**
+     * 字节数组上传，data 为 JSON 数字数组
+     */
+    private static final class ByteUpload {
+        private String bucket;
+        private String acl;
+        private String filePath;
+        private String fileName;
+        private byte[] data;
+    }
+
+    private Object uploadByte(HttpExchange exchange) throws IOException {
+        ByteUpload upload = GSON.fromJson(new String(readBody(exchange), Constants.UTF_8), ByteUpload.class);
+        if (upload == null || upload.data == null) {
+            throw new ApiException(400, "missing data");
+        }
+        Bucket bucket = bucket(upload.bucket);
+        String fullPath = fullPath(upload.filePath, upload.fileName);
+        return objectInfo(bucket, store.put(bucket, fullPath, acl(upload.acl), upload.data));
+    }
+
+    private Object uploadOctet(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange);
+        Bucket bucket = bucket(query.get("bucket"));
+        String acl = acl(query.get("acl"));
+        String fullPath = fullPath(query.get("filePath"), query.get("fileName"));
+        try (InputStream in = requestBody(exchange)) {
+            return objectInfo(bucket, store.put(bucket, fullPath, acl, in));
+        }
+    }
+
+    private Object uploadBase64(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = jsonBody(exchange);
+        Bucket bucket = bucket(required(body, "bucket"));
+        String data = required(body, "data");
+        // 兼容 data:image/png;base64, 前缀
+        int comma = data.indexOf(',');
+        if (data.startsWith("data:") && comma > 0) {
+            data = data.substring(comma + 1);
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64Util.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "illegal base64 data");
+        }
+        String fullPath = fullPath(str(body, "filePath"), required(body, "fileName"));
+        return objectInfo(bucket, store.put(bucket, fullPath, acl(body), bytes));
+    }
+
+    private Object createFolder(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = jsonBody(exchange);
+        Bucket bucket = bucket(required(body, "bucket"));
+        String folder = trimSlash(required(body, "folder"));
+        if (folder.isEmpty() || Arrays.asList(folder.split("/")).contains("..")) {
+            throw new ApiException(400, "illegal folder");
+        }
+        return store.createFolder(bucket, folder);
+    }
+
+    private Object generateUrl(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = jsonBody(exchange);
+        Bucket bucket = bucket(required(body, "bucket"));
+        StoredObject object = object(bucket, required(body, "objectPath"));
+        long timeout = (long) number(body, "timeout");
+        long expires = System.currentTimeMillis() / 1000 + timeout;
+        String path = FILE_PREFIX + bucket.name + "/" + object.fullPath;
+        GenerateUrlWithSigned vo = new GenerateUrlWithSigned();
+        vo.setUrl(getAddress() + path);
+        vo.setSignature("Expires=" + expires + "&Signature=" + urlEncode(urlSigner.getSign(path + "?Expires=" + expires)));
+        return vo;
+    }
+
+    private Object deleteObjects(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = jsonBody(exchange);
+        Bucket bucket = bucket(required(body, "bucket"));
+        String objectIds = required(body, "objectIds");
+        return store.delete(bucket, new HashSet<>(Arrays.asList(objectIds.split(","))));
+    }
+
+    private Object headObject(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange);
+        Bucket bucket = bucket(query.get("bucket"));
+        StoredObject object = object(bucket, query.get("objectPath"));
+        exchange.getResponseHeaders().set("ETag", object.etag);
+        exchange.getResponseHeaders().set("Last-Modified", httpDate(object.lastModified));
+        return objectInfo(bucket, object);
+    }
+
+    /**
+     * 按目录前缀分页列出对象（含子目录），marker 为上一页的 nextMarker
+     */
+    private Object listObjects(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange);
+        Bucket bucket = bucket(query.get("bucket"));
+        String prefix = query.get("path") == null ? "" : trimSlash(query.get("path"));
+        if (!prefix.isEmpty()) {
+            prefix = prefix + "/";
+        }
+        int limit = DEFAULT_LIST_LIMIT;
+        if (query.get("limit") != null) {
+            try {
+                limit = Math.max(1, Math.min(MAX_LIST_LIMIT, Integer.parseInt(query.get("limit"))));
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "illegal limit");
+            }
+        }
+        List<StoredObject> page = store.list(bucket, prefix, query.get("marker"), limit);
+        boolean truncated = page.size() > limit;
+        List<ObjectInfo> objects = new ArrayList<>(Math.min(page.size(), limit));
+        for (int i = 0; i < page.size() && i < limit; i++) {
+            objects.add(objectInfo(bucket, page.get(i)));
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("objects", objects);
+        data.put("truncated", truncated);
+        data.put("nextMarker", truncated ? page.get(limit - 1).fullPath : null);
+        return data;
+    }
+
+    private Object setObjectAcl(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = jsonBody(exchange);
+        Bucket bucket = bucket(required(body, "bucket"));
+        StoredObject object = object(bucket, required(body, "objectPath"));
+        object.acl = acl(body);
+        return null;
+    }
+
+    /**
+     * 读取对象，支持 Range 与 If-Match / If-None-Match / If-Modified-Since 条件请求
+     * <p>公共读对象无需签名，私有对象需签名或临时访问 url 参数</p>
+     */
+    private void getObject(HttpExchange exchange) throws IOException {
+        String rest = exchange.getRequestURI().getPath().substring(FILE_PREFIX.length());
+        int slash = rest.indexOf('/');
+        if (slash <= 0) {
+            throw new ApiException(404, "object not exist");
+        }
+        Bucket bucket = bucket(rest.substring(0, slash));
+        StoredObject object = object(bucket, rest.substring(slash + 1));
+        if (!EmulatorStore.isPublicRead(bucket, object) && !authenticate(exchange) && !validTempUrl(exchange)) {
+            throw new ApiException(403, "access denied");
+        }
+        exchange.getResponseHeaders().set("ETag", object.etag);
+        exchange.getResponseHeaders().set("Last-Modified", httpDate(object.lastModified));
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+        if (ifMatch != null && !"*".equals(ifMatch.trim()) && !Arrays.asList(ifMatch.split("\\s*,\\s*")).contains(object.etag)) {
+            throw new ApiException(412, "precondition failed");
+        }
+        if (notModified(exchange, object)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        long start = 0;
+        long end = object.size - 1;
+        int status = 200;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null && range.startsWith("bytes=") && !range.contains(",")) {
+            long[] r = parseRange(range.substring("bytes=".length()).trim(), object.size);
+            if (r == null) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + object.size);
+                exchange.sendResponseHeaders(416, -1);
+                return;
+            }
+            start = r[0];
+            end = r[1];
+            status = 206;
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + object.size);
+        }
+        long length = end - start + 1;
+        exchange.getResponseHeaders().set("Content-Type", Constants.DEFAULT_MIME);
+        exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+        if (length == 0) {
+            return;
+        }
+        try (InputStream in = store.open(object, start); OutputStream out = responseBody(exchange)) {
+            byte[] buffer = new byte[THROTTLE_CHUNK];
+            long remaining = length;
+            while (remaining > 0) {
+                int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (n < 0) {
+                    break;
+                }
+                out.write(buffer, 0, n);
+                remaining -= n;
+            }
+        }
+    }
+
+    // ～ multipart
+    //=======================================================================================================================
+
+    private Object initMultipartUpload(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = jsonBody(exchange);
+        Bucket bucket = bucket(required(body, "bucket"));
+        String fullPath = fullPath(str(body, "filePath"), required(body, "fileName"));
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("uploadId", store.initUpload(bucket.name, acl(body), fullPath));
+        return data;
+    }
+
+    private Object uploadPart(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange);
+        Upload upload = upload(query.get("uploadId"));
+        int partNumber;
+        try {
+            partNumber = Integer.parseInt(query.get("partNumber"));
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "illegal partNumber");
+        }
+        return store.putPart(upload, partNumber, readBody(exchange));
+    }
+
+    private Object completeMultipartUpload(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = jsonBody(exchange);
+        String uploadId = required(body, "uploadId");
+        Upload upload = upload(uploadId);
+        Bucket bucket = bucket(upload.bucket);
+        Object parts = body.get("parts");
+        if (!(parts instanceof List) || ((List<?>) parts).isEmpty()) {
+            throw new ApiException(400, "missing parts");
+        }
+        List<InputStream> streams = new ArrayList<>();
+        int expected = 1;
+        for (Object item : (List<?>) parts) {
+            Map<?, ?> part = (Map<?, ?>) item;
+            int partNumber = ((Number) part.get("partNumber")).intValue();
+            byte[] data = upload.parts.get(partNumber);
+            if (partNumber != expected++ || data == null) {
+                throw new ApiException(400, "missing part " + partNumber);
+            }
+            java.security.MessageDigest md5 = EmulatorStore.md5();
+            md5.update(data);
+            if (!EmulatorStore.etag(md5).equals(part.get("etag"))) {
+                throw new ApiException(400, "etag mismatch, part " + partNumber);
+            }
+            streams.add(new ByteArrayInputStream(data));
+        }
+        StoredObject object = store.put(bucket, upload.fullPath, upload.acl, new SequenceInputStream(Collections.enumeration(streams)));
+        store.removeUpload(uploadId);
+        return objectInfo(bucket, object);
+    }
+
+    private Object abortMultipartUpload(HttpExchange exchange) throws IOException {
+        store.removeUpload(required(jsonBody(exchange), "uploadId"));
+        return null;
+    }
+
+    // ～ private
+    //=======================================================================================================================
+
+    private Bucket bucket(@Nullable String name) throws ApiException {
+        Bucket bucket = store.bucket(name);
+        if (bucket == null) {
+            throw new ApiException(404, "bucket not exist");
+        }
+        return bucket;
+    }
+
+    private static StoredObject object(Bucket bucket, @Nullable String objectPath) throws ApiException {
+        StoredObject object = objectPath == null ? null : bucket.objects.get(trimSlash(objectPath));
+        if (object == null) {
+            throw new ApiException(404, "object not exist");
+        }
+        return object;
+    }
+
+    private Upload upload(@Nullable String uploadId) throws ApiException {
+        Upload upload = store.upload(uploadId);
+        if (upload == null) {
+            throw new ApiException(404, "upload not exist");
+        }
+        return upload;
+    }
+
+    private ObjectInfo objectInfo(Bucket bucket, StoredObject object) {
+        ObjectInfo vo = new ObjectInfo();
+        vo.setId(object.id);
+        vo.setFileName(object.fileName());
+        vo.setFilePath(object.filePath());
+        vo.setUrl(getAddress() + FILE_PREFIX + bucket.name + "/" + object.fullPath);
+        vo.setAcl(object.acl);
+        vo.setSize(object.size);
+        vo.setFormattedSize(formatSize(object.size));
+        vo.setUploadType(false);
+        return vo;
+    }
+
+    private static BucketInfo bucketInfo(Bucket bucket) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        BucketInfo vo = new BucketInfo();
+        vo.setName(bucket.name);
+        vo.setAcl(bucket.acl);
+        vo.setRegion(bucket.region);
+        vo.setRegionName(bucket.region);
+        vo.setCreateTime(format.format(new Date(bucket.createTime)));
+        vo.setUpdateTime(format.format(new Date(bucket.updateTime)));
+        return vo;
+    }
+
+    private boolean validTempUrl(HttpExchange exchange) {
+        Map<String, String> query = query(exchange);
+        String expires = query.get("Expires");
+        String signature = query.get("Signature");
+        if (expires == null || signature == null) {
+            return false;
+        }
+        try {
+            if (Long.parseLong(expires) < System.currentTimeMillis() / 1000) {
+                return false;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return signature.equals(urlSigner.getSign(exchange.getRequestURI().getRawPath() + "?Expires=" + expires));
+    }
+
+    private static boolean notModified(HttpExchange exchange, StoredObject object) {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            return "*".equals(ifNoneMatch.trim()) || Arrays.asList(ifNoneMatch.split("\\s*,\\s*")).contains(object.etag);
+        }
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if (ifModifiedSince != null) {
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return object.lastModified / 1000 <= since / 1000;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return [start, end]，无法满足时为 null
+     */
+    private static long[] parseRange(String spec, long size) throws ApiException {
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            throw new ApiException(400, "illegal range");
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // bytes=-n 最后 n 个字节
+                long n = Long.parseLong(last);
+                start = Math.max(0, size - n);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            }
+            return start >= size || start > end ? null : new long[]{start, end};
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "illegal range");
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, int status, String code, String msg, Object data) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("code", code);
+        result.put("msg", msg);
+        result.put("data", data);
+        byte[] bytes = GSON.toJson(result).getBytes(Constants.UTF_8);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean gzip = bytes.length >= GZIP_MIN_SIZE && acceptEncoding != null && acceptEncoding.contains("gzip");
+        try {
+            exchange.getResponseHeaders().set("Content-Type", Constants.JSON_MIME);
+            if (gzip) {
+                gzipResponseCount.incrementAndGet();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(status, 0);
+                try (OutputStream out = new GZIPOutputStream(responseBody(exchange), THROTTLE_CHUNK)) {
+                    out.write(bytes);
+                }
+                return;
+            }
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = responseBody(exchange)) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            logger.debug("emulator write response fail, msg:{}", e.getMessage());
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String msg) {
+        sendJson(exchange, status, String.valueOf(status), msg, null);
+    }
+
+    private InputStream requestBody(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        if (bandwidth > 0) {
+            in = new ThrottledInputStream(in, new Throttle(bandwidth));
+        }
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            gzipRequestCount.incrementAndGet();
+            in = new GZIPInputStream(in);
+        }
+        return in;
+    }
+
+    private OutputStream responseBody(HttpExchange exchange) {
+        OutputStream out = exchange.getResponseBody();
+        return bandwidth > 0 ? new ThrottledOutputStream(out, new Throttle(bandwidth)) : out;
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = requestBody(exchange)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[THROTTLE_CHUNK];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private Map<String, Object> jsonBody(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = GSON.fromJson(new String(readBody(exchange), Constants.UTF_8), MAP_TYPE);
+        if (body == null) {
+            throw new ApiException(400, "empty body");
+        }
+        return body;
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        // getObject 的 token 以 '?' 追加在已有参数之后
+        for (String pair : rawQuery.split("[&?]")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(urlDecode(pair.substring(0, eq)), urlDecode(pair.substring(eq + 1)));
+            }
+        }
+        return params;
+    }
+
+    @Nullable
+    private static String queryToken(@Nullable String rawQuery) {
+        int start = tokenStart(rawQuery);
+        if (start < 0) {
+            return null;
+        }
+        int valueStart = rawQuery.indexOf('=', start) + 1;
+        int end = rawQuery.indexOf('&', valueStart);
+        String value = rawQuery.substring(valueStart, end < 0 ? rawQuery.length() : end);
+        // token 中的 '+' 为 base64 字符，不作为空格
+        return value.contains("%") ? urlDecode(value.replace("+", "%2B")) : value;
+    }
+
+    /**
+     * @return 去掉 token 参数后的 query
+     */
+    @Nullable
+    private static String stripToken(@Nullable String rawQuery) {
+        int start = tokenStart(rawQuery);
+        if (start < 0) {
+            return rawQuery;
+        }
+        int end = rawQuery.indexOf('&', start + 1);
+        String head = rawQuery.substring(0, Math.max(0, start - 1));
+        String tail = end < 0 ? "" : rawQuery.substring(end + 1);
+        return head.isEmpty() ? tail : tail.isEmpty() ? head : head + "&" + tail;
+    }
+
+    /**
+     * @return token 参数名起始位置，不存在时 -1
+     */
+    private static int tokenStart(@Nullable String rawQuery) {
+        if (rawQuery == null) {
+            return -1;
+        }
+        if (rawQuery.startsWith("token=")) {
+            return 0;
+        }
+        for (String sep : new String[]{"&token=", "?token="}) {
+            int i = rawQuery.indexOf(sep);
+            if (i >= 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static String fullPath(@Nullable String filePath, @Nullable String fileName) throws ApiException {
+        if (fileName == null || fileName.isEmpty() || fileName.contains("/")) {
+            throw new ApiException(400, "illegal fileName");
+        }
+        String dir = filePath == null ? "" : trimSlash(filePath);
+        if (Arrays.asList(dir.split("/")).contains("..")) {
+            throw new ApiException(400, "illegal filePath");
+        }
+        return dir.isEmpty() ? fileName : dir + "/" + fileName;
+    }
+
+    private static String trimSlash(String path) {
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return path.substring(start, end).replaceAll("/{2,}", "/");
+    }
+
+    private static String acl(Map<String, Object> body) throws ApiException {
+        return acl(str(body, "acl"));
+    }
+
+    private static String acl(@Nullable String acl) throws ApiException {
+        if (acl == null) {
+            throw new ApiException(400, "missing acl");
+        }
+        try {
+            return Constants.AclType.valueOf(acl).name();
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "illegal acl");
+        }
+    }
+
+    @Nullable
+    private static String str(Map<String, Object> body, String key) {
+        Object value = body.get(key);
+        return value == null ? null : value.toString();
+    }
+
+    private static String required(Map<String, Object> body, String key) throws ApiException {
+        String value = str(body, key);
+        if (value == null || value.isEmpty()) {
+            throw new ApiException(400, "missing " + key);
+        }
+        return value;
+    }
+
+    private static double number(Map<String, Object> body, String key) throws ApiException {
+        Object value = body.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return Double.parseDouble(required(body, key));
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "illegal " + key);
+        }
+    }
+
+    private static String formatSize(long size) {
+        if (size < 1024) {
+            return size + "B";
+        }
+        String[] units = {"KB", "MB", "GB", "TB"};
+        double value = size;
+        int unit = -1;
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format("%.2f%s", value, units[unit]);
+    }
+
+    private static String httpDate(long millis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+    }
+
+    private static String urlEncode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String urlDecode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException exc) throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 按带宽限制读写速度，每个请求体、响应体独立计算
+     */
+    private static final class Throttle {
+        private final long bytesPerSecond;
+        private final long start = System.nanoTime();
+        private long transferred;
+
+        private Throttle(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        private void acquire(int bytes) throws InterruptedIOException {
+            transferred += bytes;
+            long expectedNanos = (long) (transferred * 1e9 / bytesPerSecond);
+            long waitNanos = expectedNanos - (System.nanoTime() - start);
+            if (waitNanos > 0) {
+                sleep(waitNanos / 1_000_000 + 1);
+            }
+        }
+    }
+
+    private static final class ThrottledInputStream extends FilterInputStream {
+        private final Throttle throttle;
+
+        private ThrottledInputStream(InputStream in, Throttle throttle) {
+            super(in);
+            this.throttle = throttle;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                throttle.acquire(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, Math.min(len, THROTTLE_CHUNK));
+            if (n > 0) {
+                throttle.acquire(n);
+            }
+            return n;
+        }
+    }
+
+    private static final class ThrottledOutputStream extends FilterOutputStream {
+        private final Throttle throttle;
+
+        private ThrottledOutputStream(OutputStream out, Throttle throttle) {
+            super(out);
+            this.throttle = throttle;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            throttle.acquire(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int written = 0;
+            while (written < len) {
+                int n = Math.min(THROTTLE_CHUNK, len - written);
+                out.write(b, off + written, n);
+                throttle.acquire(n);
+                written += n;
+            }
+        }
+    }
+
+    public static final class Builder {
+        private int port;
+        private final Map<String, Auth> credentials = new HashMap<>();
+        private final List<String> buckets = new ArrayList<>();
+        private long latencyMillis;
+        private long bandwidth;
+        private int capacity;
+        private Path storageDir;
+        private boolean tempStorage;
+
+        private Builder() {
+        }
+
+        /**
+         * 监听端口，默认 0 即随机端口
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * 添加可访问的密钥对
+         */
+        public Builder credential(String accessKeyId, String accessKeySecret) {
+            credentials.put(accessKeyId, Auth.create(accessKeyId, accessKeySecret));
+            return this;
+        }
+
+        /**
+         * 预先创建的 bucket，acl 为私有
+         */
+        public Builder bucket(String name) {
+            buckets.add(name);
+            return this;
+        }
+
+        /**
+         * 每个请求处理前的固定延迟，默认 0
+         */
+        public Builder latency(long millis) {
+            this.latencyMillis = millis;
+            return this;
+        }
+
+        /**
+         * 单个请求体、响应体的传输速率上限（字节/秒），默认不限制
+         */
+        public Builder bandwidth(long bytesPerSecond) {
+            this.bandwidth = bytesPerSecond;
+            return this;
+        }
+
+        /**
+         * 同时处理的请求数上限，超出时返回 503，默认不限制
+         */
+        public Builder capacity(int maxConcurrentRequests) {
+            this.capacity = maxConcurrentRequests;
+            return this;
+        }
+
+        /**
+         * 对象内容保存到指定目录，默认保存在内存
+         */
+        public Builder storageDir(Path dir) {
+            this.storageDir = dir;
+            return this;
+        }
+
+        /**
+         * 对象内容保存到临时目录，关闭时删除
+         */
+        public Builder tempStorage() {
+            this.tempStorage = true;
+            return this;
+        }
+
+        public OssEmulator start() throws IOException {
+            if (credentials.isEmpty()) {
+                throw new IllegalArgumentException("at least one credential required");
+            }
+            OssEmulator emulator = new OssEmulator(this);
+            emulator.server.start();
+            return emulator;
+        }
+    }
+}